@@ -26,6 +26,7 @@ public class MoraPackGA {
     static final int ELITE_K   = 4;
     static final int TOURN_K   = 3;
     static final int NO_IMPROV_LIMIT = 40;
+    static final double GAP_STOP = 0.0;   // corta al llegar a la cota de flujo (negativo = sin cota)
 
     // Objetivo
     static final double LAMBDA_ONTIME = 1.0;
@@ -118,6 +119,7 @@ public class MoraPackGA {
         Map<String,Integer> capUsed = new HashMap<>(); // (flight,day) -> used
         int servedOnTime, servedLate, capViol, avgSlack;
         double objective;
+        double service;    // objetivo sin el término de holgura (lo que acota serviceObjectiveBound)
     }
 
     static class World {
@@ -516,21 +518,260 @@ public class MoraPackGA {
 
         sol.servedOnTime = onTime; sol.servedLate = late; sol.capViol = viol;
         sol.avgSlack = (slackCnt==0)?0:(int)(slackSum/slackCnt);
-        sol.objective = LAMBDA_ONTIME*onTime - LAMBDA_LATE*late - LAMBDA_CAPVIO*viol + LAMBDA_SLACK*sol.avgSlack;
+        sol.service = LAMBDA_ONTIME*onTime - LAMBDA_LATE*late - LAMBDA_CAPVIO*viol;
+        sol.objective = sol.service + LAMBDA_SLACK*sol.avgSlack;
         return sol;
     }
 
+    // ===================== Cota por flujo máximo =====================
+    // Red expandida en el tiempo: nodo = (aeropuerto, instante listo para salir), arcos
+    // vuelo-día con su capacidad, esperas entre nodos consecutivos (con tope de almacén
+    // fuera de los hubs cuando cruzan un slot), fuentes en los hubs a la liberación y
+    // sumideros al vencimiento más holgado de cada orden. Lo que llega a un destino pasa
+    // a una cadena "entregado" sin tope. El flujo máximo acota la cantidad a tiempo.
+    static class MaxFlow {
+        static final long INF = Long.MAX_VALUE / 4;
+        final int n;
+        final int[] head;
+        int[] to = new int[16], next = new int[16];
+        long[] cap = new long[16];
+        int m = 0;
+        int[] level, it, queue, stack;
+
+        MaxFlow(int n){ this.n=n; head=new int[n]; Arrays.fill(head,-1); }
+
+        void addEdge(int u, int v, long c){
+            if (m+2 > to.length){
+                to=Arrays.copyOf(to,to.length*2); next=Arrays.copyOf(next,next.length*2); cap=Arrays.copyOf(cap,cap.length*2);
+            }
+            to[m]=v; cap[m]=c; next[m]=head[u]; head[u]=m++;
+            to[m]=u; cap[m]=0; next[m]=head[v]; head[v]=m++;
+        }
+
+        long solve(int s, int t){
+            level=new int[n]; it=new int[n]; queue=new int[n]; stack=new int[n];
+            long flow=0;
+            while (bfs(s,t)){
+                System.arraycopy(head,0,it,0,n);
+                flow += blocking(s,t);
+            }
+            return flow;
+        }
+
+        boolean bfs(int s, int t){
+            Arrays.fill(level,-1);
+            int qh=0, qt=0;
+            level[s]=0; queue[qt++]=s;
+            while (qh<qt){
+                int u=queue[qh++];
+                for (int e=head[u]; e!=-1; e=next[e])
+                    if (cap[e]>0 && level[to[e]]<0){ level[to[e]]=level[u]+1; queue[qt++]=to[e]; }
+            }
+            return level[t]>=0;
+        }
+
+        // DFS iterativa (las cadenas de espera son largas para la pila de Java)
+        long blocking(int s, int t){
+            long flow=0;
+            int depth=0, u=s;
+            while (true){
+                if (u==t){
+                    long f=INF;
+                    for (int i=0;i<depth;i++) f=Math.min(f,cap[stack[i]]);
+                    int cut=depth;
+                    for (int i=depth-1;i>=0;i--){
+                        int e=stack[i];
+                        cap[e]-=f; cap[e^1]+=f;
+                        if (cap[e]==0) cut=i;
+                    }
+                    flow+=f;
+                    depth=cut;
+                    u=(depth==0)?s:to[stack[depth-1]];
+                    continue;
+                }
+                int e=it[u];
+                while (e!=-1 && (cap[e]==0 || level[to[e]]!=level[u]+1)) e=next[e];
+                it[u]=e;
+                if (e!=-1){ stack[depth++]=e; u=to[e]; continue; }
+                if (u==s) return flow;
+                level[u]=-1;
+                depth--;
+                u=to[stack[depth]^1];
+                it[u]=next[it[u]];
+            }
+        }
+    }
+
+    static int maxDueForOrder(World W, Order o){
+        int due = Integer.MIN_VALUE;
+        for (String h : hubs(W)) due = Math.max(due, computeDueForHub(W, h, o.dest, o.releaseMinUTC));
+        return due;
+    }
+
+    // aeropuerto en los 32 bits altos; el tiempo va corrido porque puede ser negativo
+    static long nodeKey(int ap, int t){ return ((long)ap << 32) + (t + (1 << 20)); }
+    static int keyTime(long key){ return (int)(key & 0xffffffffL) - (1 << 20); }
+
+    static long onTimeQtyBound(World W, List<Order> orders, int horizonDays){
+        // horarios UTC por vuelo-día, como en enumerateCandidates
+        int[][] depUTC = new int[W.flights.size()][horizonDays], arrUTC = new int[W.flights.size()][horizonDays];
+        for (int fi=0; fi<W.flights.size(); fi++){
+            Flight f = W.flights.get(fi);
+            Airport aO = W.airports.get(f.orig), aD = W.airports.get(f.dest);
+            if (aO==null || aD==null) continue;
+            for (int d=0; d<horizonDays; d++){
+                depUTC[fi][d] = toUTCFromLocal(aO, f.depLocalMin) + d*1440;
+                arrUTC[fi][d] = toUTCFromLocal(aD, f.arrLocalMin) + d*1440;
+                if (arrUTC[fi][d] < depUTC[fi][d]) arrUTC[fi][d] += 1440;
+            }
+        }
+
+        Map<String,Integer> apIdx = new HashMap<>();
+        for (String code : W.airports.keySet()) apIdx.put(code, apIdx.size());
+
+        // eventos (aeropuerto, instante) -> nodos, ordenados por aeropuerto y tiempo
+        List<Long> ev = new ArrayList<>();
+        for (int fi=0; fi<W.flights.size(); fi++){
+            Flight f = W.flights.get(fi);
+            if (!apIdx.containsKey(f.orig) || !apIdx.containsKey(f.dest)) continue;
+            for (int d=0; d<horizonDays; d++){
+                ev.add(nodeKey(apIdx.get(f.orig), depUTC[fi][d]));
+                ev.add(nodeKey(apIdx.get(f.dest), arrUTC[fi][d] + MIN_TURN_MIN));
+            }
+        }
+        for (Order o : orders){
+            if (!apIdx.containsKey(o.dest)) continue;
+            ev.add(nodeKey(apIdx.get(o.dest), maxDueForOrder(W, o) + MIN_TURN_MIN));
+            for (String h : hubs(W)) ev.add(nodeKey(apIdx.get(h), o.releaseMinUTC + MIN_TURN_MIN));
+        }
+        long[] keys = ev.stream().mapToLong(Long::longValue).sorted().distinct().toArray();
+        int n = keys.length;
+
+        Set<Integer> destAps = new HashSet<>();
+        for (Order o : orders) if (apIdx.containsKey(o.dest)) destAps.add(apIdx.get(o.dest));
+        String[] codeOf = new String[apIdx.size()];
+        for (Map.Entry<String,Integer> e : apIdx.entrySet()) codeOf[e.getValue()] = e.getKey();
+
+        int src = 2*n + orders.size(), sink = src + 1;
+        MaxFlow g = new MaxFlow(sink + 1);
+        for (int fi=0; fi<W.flights.size(); fi++){
+            Flight f = W.flights.get(fi);
+            if (!apIdx.containsKey(f.orig) || !apIdx.containsKey(f.dest)) continue;
+            for (int d=0; d<horizonDays; d++){
+                int u = Arrays.binarySearch(keys, nodeKey(apIdx.get(f.orig), depUTC[fi][d]));
+                int v = Arrays.binarySearch(keys, nodeKey(apIdx.get(f.dest), arrUTC[fi][d] + MIN_TURN_MIN));
+                g.addEdge(u, v, f.capacity);
+            }
+        }
+        for (int i=0; i+1<n; i++){
+            int ap = (int)(keys[i] >>> 32);
+            if (ap != (int)(keys[i+1] >>> 32)) continue;
+            int t1 = keyTime(keys[i]), t2 = keyTime(keys[i+1]);
+            Airport a = W.airports.get(codeOf[ap]);
+            boolean stored = a != null && !a.isExporter && slotOf(t1) != slotOf(t2);
+            g.addEdge(i, i+1, stored ? a.storageCap : MaxFlow.INF);
+            if (destAps.contains(ap)) g.addEdge(n+i, n+i+1, MaxFlow.INF);
+        }
+        for (int i=0; i<n; i++) if (destAps.contains((int)(keys[i] >>> 32))) g.addEdge(i, n+i, MaxFlow.INF);
+
+        long[] demand = new long[n];
+        for (int j=0; j<orders.size(); j++){
+            Order o = orders.get(j);
+            if (!apIdx.containsKey(o.dest)) continue;
+            demand[Arrays.binarySearch(keys, nodeKey(apIdx.get(o.dest), maxDueForOrder(W, o) + MIN_TURN_MIN))] += o.qty;
+            g.addEdge(src, 2*n + j, o.qty);
+            for (String h : hubs(W))
+                g.addEdge(2*n + j, Arrays.binarySearch(keys, nodeKey(apIdx.get(h), o.releaseMinUTC + MIN_TURN_MIN)), MaxFlow.INF);
+        }
+        for (int i=0; i<n; i++) if (demand[i] > 0) g.addEdge(n+i, sink, demand[i]);
+        return g.solve(src, sink);
+    }
+
+    // Cota de la parte de servicio del objetivo (sin el término de holgura, que solo
+    // desempata): a lo sumo las órdenes más chicas que quepan en la cota de cantidad
+    // llegan a tiempo, y sin violaciones.
+    static double serviceObjectiveBound(World W, List<Order> orders, int horizonDays){
+        long qtyBound = onTimeQtyBound(W, orders, horizonDays);
+        int[] qtys = orders.stream().mapToInt(o -> o.qty).sorted().toArray();
+        int k = 0; long acc = 0;
+        while (k < qtys.length && acc + qtys[k] <= qtyBound) acc += qtys[k++];
+        return LAMBDA_ONTIME*k - LAMBDA_LATE*(orders.size()-k);
+    }
+
+    // ===================== Caché de fitness ==========================
+    // Las élites y los hijos que salen como copia sin mutar repiten cromosoma. El fitness
+    // se guarda por un hash de 128 bits de las keys (al acertar se comparan las keys) para
+    // la generación actual y la anterior, así ningún individuo se decodifica dos veces.
+    static class FitnessCache {
+        static class Entry {
+            final long h2; final double[] keys; final double fit;
+            Entry(long h2, double[] keys, double fit){ this.h2=h2; this.keys=keys; this.fit=fit; }
+        }
+        Map<Long,List<Entry>> cur = new HashMap<>(), prev = new HashMap<>();
+        int hits, misses;
+
+        static long mix(long x){
+            x = (x ^ (x >>> 30)) * 0xBF58476D1CE4E5B9L;
+            x = (x ^ (x >>> 27)) * 0x94D049BB133111EBL;
+            return x ^ (x >>> 31);
+        }
+        static long[] hash(double[] keys){
+            long h1 = 0x9E3779B97F4A7C15L, h2 = keys.length;
+            for (double k : keys){
+                long b = Double.doubleToLongBits(k);
+                h1 = mix(h1 ^ b);
+                h2 = mix(h2 + b*0xC2B2AE3D27D4EB4FL);
+            }
+            return new long[]{h1, h2};
+        }
+        static Entry find(Map<Long,List<Entry>> m, long[] h, double[] keys){
+            List<Entry> l = m.get(h[0]);
+            if (l==null) return null;
+            for (Entry e : l) if (e.h2==h[1] && Arrays.equals(e.keys, keys)) return e;
+            return null;
+        }
+        static void store(Map<Long,List<Entry>> m, long h1, Entry e){
+            m.computeIfAbsent(h1, k->new ArrayList<>(1)).add(e);
+        }
+
+        // null si no está (se cuenta como decode pendiente)
+        Double get(Chromosome c){
+            long[] h = hash(c.keys);
+            Entry e = find(cur, h, c.keys);
+            if (e==null){
+                e = find(prev, h, c.keys);
+                if (e!=null) store(cur, h[0], e);
+            }
+            if (e==null){ misses++; return null; }
+            hits++;
+            return e.fit;
+        }
+        void put(Chromosome c, double fit){
+            long[] h = hash(c.keys);
+            if (find(cur, h, c.keys)==null) store(cur, h[0], new Entry(h[1], c.keys.clone(), fit));
+        }
+        void nextGeneration(){ prev = cur; cur = new HashMap<>(); }
+    }
+
     // ===================== GA Core ==================================
     static double fitness(World W, List<Order> orders, Chromosome c, int horizonDays){
         // Usa semilla fija para que la evaluación sea determinista
         return decode(W, orders, c, horizonDays, 12345L).objective;
     }
 
-    static Chromosome tournament(List<Chromosome> pop, World W, List<Order> orders, int horizonDays, Random rnd){
+    static double fitness(World W, List<Order> orders, Chromosome c, int horizonDays, FitnessCache cache){
+        Double f = cache.get(c);
+        if (f!=null) return f;
+        double fit = fitness(W, orders, c, horizonDays);
+        cache.put(c, fit);
+        return fit;
+    }
+
+    static Chromosome tournament(List<Chromosome> pop, World W, List<Order> orders, int horizonDays, Random rnd, FitnessCache cache){
         Chromosome best=null; double bestFit=-1e18;
         for (int i=0;i<TOURN_K;i++){
             Chromosome cand = pop.get(rnd.nextInt(pop.size()));
-            double fit = fitness(W, orders, cand, horizonDays);
+            double fit = fitness(W, orders, cand, horizonDays, cache);
             if (fit>bestFit){ bestFit=fit; best=cand; }
         }
         return best;
@@ -557,32 +798,51 @@ public class MoraPackGA {
         List<Chromosome> pop = new ArrayList<>();
         for (int i=0;i<POP_SIZE;i++) pop.add(randomChromosome(W.flights.size(), rnd));
 
-        Chromosome best=null; double bestFit=-1e18; int stall=0;
+        Chromosome best=null; double bestFit=-1e18, bestService=-1e18; int stall=0;
+        FitnessCache cache = new FitnessCache();
+
+        double target = Double.POSITIVE_INFINITY;
+        if (GAP_STOP >= 0){
+            double bound = serviceObjectiveBound(W, orders, horizonDays);
+            target = bound - GAP_STOP*Math.abs(bound);
+            System.out.println(String.format("[GA] Cota de flujo máximo: objetivo sin holgura <= %.3f", bound));
+        }
 
         for (int gen=1; gen<=MAX_GEN; gen++){
+            cache.nextGeneration();
             // elitismo
             List<Chromosome> sorted = pop.stream()
-                .sorted(Comparator.comparingDouble(c->-fitness(W,orders, (Chromosome)c, horizonDays)))
+                .sorted(Comparator.comparingDouble(c->-fitness(W,orders, (Chromosome)c, horizonDays, cache)))
                 .collect(Collectors.toList());
             List<Chromosome> off = new ArrayList<>();
             for (int i=0;i<ELITE_K;i++) off.add(sorted.get(i).copy());
 
             while (off.size()<POP_SIZE){
-                Chromosome p1 = tournament(pop, W, orders, horizonDays, rnd);
-                Chromosome p2 = tournament(pop, W, orders, horizonDays, rnd);
+                Chromosome p1 = tournament(pop, W, orders, horizonDays, rnd, cache);
+                Chromosome p2 = tournament(pop, W, orders, horizonDays, rnd, cache);
                 Chromosome ch = crossover(p1,p2,rnd);
                 mutate(ch,rnd);
                 off.add(ch);
             }
             pop = off;
 
-            Chromosome iterBest = pop.stream().max(Comparator.comparingDouble(c->fitness(W,orders,c,horizonDays))).orElse(pop.get(0));
-            double iterFit = fitness(W,orders,iterBest,horizonDays);
+            Chromosome iterBest = pop.stream().max(Comparator.comparingDouble(c->fitness(W,orders,c,horizonDays,cache))).orElse(pop.get(0));
+            double iterFit = fitness(W,orders,iterBest,horizonDays,cache);
 
-            if (iterFit > bestFit){ bestFit=iterFit; best=iterBest.copy(); stall=0; }
+            if (iterFit > bestFit){
+                bestFit=iterFit; best=iterBest.copy(); stall=0;
+                // el fitness guardado incluye la holgura: el nuevo mejor se decodifica otra vez
+                // (misma semilla que fitness) para leer su parte de servicio
+                if (GAP_STOP >= 0) bestService = decode(W, orders, best, horizonDays, 12345L).service;
+            }
             else stall++;
 
             if (stall>=NO_IMPROV_LIMIT) break;
+            // la cota no incluye la holgura: se compara solo la parte de servicio
+            if (bestService >= target){
+                System.out.println("[GA] Brecha cerrada en la generación " + gen);
+                break;
+            }
         }
         return decode(W, orders, best, horizonDays, seed);
     }
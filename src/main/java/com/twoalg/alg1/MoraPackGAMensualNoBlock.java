@@ -1,7 +1,8 @@
 // MoraPackGAMensual.java
 // GA con decodificador (órdenes sin origen): elige hub (entre EXPORT_HUBS) por subruta.
 // Reglas: conexión mínima, due 2/3 días, ventana de recojo 2h, escalas, split entre subrutas.
-// Control de capacidad de vuelo y de almacén por intervalos (difference array por slots).
+// Control de capacidad de vuelo y de almacén por intervalos (árbol de segmentos por slots:
+// suma y máximo en rango).
 // Mejoras:
 // - Carga de pedidos mensuales dd-hh-mm-dest-###-IdClien (UTC).
 // - Heurística: prioriza vuelos directos y “dos saltos” + evita revisitas.
@@ -13,6 +14,7 @@ import java.nio.charset.*;
 import java.time.*;
 import java.time.format.*;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.regex.*;
 
 public class MoraPackGAMensualNoBlock {
@@ -31,6 +33,8 @@ public class MoraPackGAMensualNoBlock {
     static final int ELITE_K   = 4;
     static final int TOURN_K   = 3;
     static final int NO_IMPROV_LIMIT = 40;
+    static final double GAP_STOP = 0.0;   // corta al llegar a la cota de flujo (negativo = sin cota)
+    static final int EVAL_THREADS = Runtime.getRuntime().availableProcessors(); // decodes en paralelo por generación
 
     // Objetivo
     static final double LAMBDA_ONTIME = 1.0;
@@ -45,7 +49,7 @@ public class MoraPackGAMensualNoBlock {
         "UBBB"   // Bakú
     );
 
-    // Stock/Almacén: granularidad de slots para difference arrays
+    // Stock/Almacén: granularidad de slots del árbol de segmentos
     static final int SLOT_MIN = 60; // 60 minutos
 
     // Recorte opcional de branching
@@ -134,6 +138,7 @@ public class MoraPackGAMensualNoBlock {
     // Una subruta mueve un BLOQUE fijo de cantidad desde un hub hasta el destino
     static class SubRoute {
         String originHub;
+        int hubId;
         List<FlightUse> legs = new ArrayList<>(8);
         int qty;
         int arrivalUTC;
@@ -141,9 +146,21 @@ public class MoraPackGAMensualNoBlock {
 
     static class Solution {
         Map<Order, List<SubRoute>> routes = new HashMap<>();
-        Map<String,Integer> capUsed = new HashMap<>(); // (flight,day) -> used
+        int[][] capUsed;   // [vuelo][día] -> usado; null en el modo de fitness
         int servedOnTime, servedLate, capViol, avgSlack;
         double objective;
+        double service;    // objetivo sin el término de holgura (lo que acota serviceObjectiveBound)
+        DecodeTrace trace; // solo en el modo de fitness
+
+        // (flight,day) -> usado con las claves de texto de fkey; solo para reportes
+        Map<String,Integer> capUsedByKey(World W){
+            Map<String,Integer> m = new HashMap<>();
+            if (capUsed==null) return m;
+            for (int fi=0; fi<capUsed.length; fi++)
+                for (int d=0; d<capUsed[fi].length; d++)
+                    if (capUsed[fi][d]>0) m.put(fkey(W.flights.get(fi), d), capUsed[fi][d]);
+            return m;
+        }
     }
 
     static class World {
@@ -329,8 +346,10 @@ public class MoraPackGAMensualNoBlock {
     // ===================== GA: Cromosoma =============================
     static class Chromosome {
         double[] keys; // una key por vuelo plantilla
+        DecodeTrace trace;      // rastro de su decode de fitness (null si no se decodificó)
+        DecodeTrace[] bases;    // rastros de los padres, para decodificar solo el sufijo
         Chromosome(int n) { keys = new double[n]; }
-        Chromosome copy(){ Chromosome c=new Chromosome(keys.length); System.arraycopy(keys,0,c.keys,0,keys.length); return c; }
+        Chromosome copy(){ Chromosome c=new Chromosome(keys.length); System.arraycopy(keys,0,c.keys,0,keys.length); c.trace=trace; return c; }
     }
     static Chromosome randomChromosome(int n, Random rnd){
         Chromosome c=new Chromosome(n);
@@ -355,16 +374,58 @@ public class MoraPackGAMensualNoBlock {
         final int[][] arrUTC;             // [fi][d]
         final Map<Flight,Integer> flightIndex = new HashMap<>();
         final Map<String,int[]> outIdxByAirport = new HashMap<>();
-
-        Precomp(int numFlights, int horizonDays){
+        // ids densos de aeropuerto: el decode trabaja con enteros y los códigos solo
+        // se usan para traducir entradas y escribir reportes
+        final Map<String,Integer> airportId = new HashMap<>();
+        final String[] codeOf;
+        final Airport[] airportOf;
+        final int[] origOf, destOf;          // [fi] -> id, -1 si el aeropuerto no existe
+        final int[] hubIds;
+        // por aeropuerto, todas las salidas (vuelo, día) del horizonte ordenadas por hora UTC
+        final Timeline[] timelineOf;
+        // por destino, calculados una vez y de solo lectura: los comparten todos los decodes
+        final double[][] distToDest;         // [destino][aeropuerto] en km
+        final boolean[][] directToDest;      // [destino][aeropuerto]: hay vuelo directo
+
+        Precomp(World W, int horizonDays){
+            int numFlights = W.flights.size();
             depUTC = new int[numFlights][horizonDays];
             arrUTC = new int[numFlights][horizonDays];
+            int na = W.airports.size();
+            codeOf = new String[na];
+            airportOf = new Airport[na];
+            for (Airport a : W.airports.values()){
+                int id = airportId.size();
+                airportId.put(a.code, id); codeOf[id] = a.code; airportOf[id] = a;
+            }
+            origOf = new int[numFlights]; destOf = new int[numFlights];
+            for (int fi=0; fi<numFlights; fi++){
+                Flight f = W.flights.get(fi);
+                origOf[fi] = airportId.getOrDefault(f.orig, -1);
+                destOf[fi] = airportId.getOrDefault(f.dest, -1);
+            }
+            hubIds = W.hubList.stream().mapToInt(airportId::get).toArray();
+            timelineOf = new Timeline[na];
+            distToDest = new double[na][na];
+            directToDest = new boolean[na][na];
+        }
+        int idOf(String code){ return airportId.getOrDefault(code, -1); }
+    }
+
+    static class Timeline {
+        final int[] dep, arr, fi, day;
+        Timeline(int n){ dep=new int[n]; arr=new int[n]; fi=new int[n]; day=new int[n]; }
+        // primera posición con salida >= t
+        int firstAtOrAfter(int t){
+            int lo=0, hi=dep.length;
+            while (lo<hi){ int m=(lo+hi)>>>1; if (dep[m]<t) lo=m+1; else hi=m; }
+            return lo;
         }
     }
 
     static Precomp precompute(World W, int horizonDays){
         int n = W.flights.size();
-        Precomp P = new Precomp(n, horizonDays);
+        Precomp P = new Precomp(W, horizonDays);
 
         for (int i=0;i<n;i++) P.flightIndex.put(W.flights.get(i), i);
 
@@ -387,130 +448,272 @@ public class MoraPackGAMensualNoBlock {
             int[] idx = new int[lst.size()];
             for (int i=0;i<idx.length;i++) idx[i] = P.flightIndex.get(lst.get(i));
             P.outIdxByAirport.put(ap, idx);
+
+            // orden por salida; a igual hora, el orden de outIdx y luego el día.
+            // Vuelos desde o hacia aeropuertos desconocidos no entran.
+            int apId = P.idOf(ap);
+            if (apId < 0) continue;
+            long[] order = new long[idx.length*horizonDays];
+            int m = 0;
+            for (int k=0;k<idx.length;k++){
+                if (P.destOf[idx[k]] < 0) continue;
+                for (int d=0; d<horizonDays; d++)
+                    order[m++] = ((long)P.depUTC[idx[k]][d] << 32) | (k*horizonDays+d);
+            }
+            order = Arrays.copyOf(order, m);
+            Arrays.sort(order);
+            Timeline tl = new Timeline(order.length);
+            for (int i=0;i<order.length;i++){
+                int pos = (int)order[i];
+                int fi = idx[pos/horizonDays], d = pos%horizonDays;
+                tl.dep[i]=P.depUTC[fi][d]; tl.arr[i]=P.arrUTC[fi][d]; tl.fi[i]=fi; tl.day[i]=d;
+            }
+            P.timelineOf[apId] = tl;
+        }
+        for (int t=0; t<P.codeOf.length; t++){
+            Airport target = P.airportOf[t];
+            for (int a=0; a<P.codeOf.length; a++)
+                P.distToDest[t][a] = haversineKm(P.airportOf[a].lat, P.airportOf[a].lon, target.lat, target.lon);
         }
+        for (int fi=0; fi<n; fi++)
+            if (P.origOf[fi]>=0 && P.destOf[fi]>=0) P.directToDest[P.destOf[fi]][P.origOf[fi]] = true;
         return P;
     }
 
-    // ===================== Stock por intervalos (difference arrays) ==
+    // ===================== Stock por intervalos (árbol de segmentos) =
     static class StockTracker {
+        // árbol de segmentos por aeropuerto (iterativo, hojas en [h, 2h)): suma en rango
+        // con pendientes en los nodos internos y máximo en rango, ambos O(log slots)
         static class Store {
-            final int[] delta;
-            final int[] pref;
-            boolean dirty = true;
-            Store(int n){ delta=new int[n+1]; pref=new int[n+1]; }
+            final int h, height;
+            final int[] max;
+            final int[] pending;
+            int epoch;      // decode al que pertenece el contenido
+            Store(int n){
+                int hh=1, ht=0; while (hh<n){ hh<<=1; ht++; }
+                h=hh; height=ht; max=new int[2*h]; pending=new int[h];
+            }
+            void clear(){ Arrays.fill(max, 0); Arrays.fill(pending, 0); }
+            private void apply(int p, int v){ max[p]+=v; if (p<h) pending[p]+=v; }
+            private void rebuild(int p){
+                for (p>>=1; p>0; p>>=1) max[p] = Math.max(max[2*p], max[2*p+1]) + pending[p];
+            }
+            private void push(int p){
+                for (int s=height; s>0; s--){
+                    int i = p>>s;
+                    if (pending[i]!=0){ apply(2*i, pending[i]); apply(2*i+1, pending[i]); pending[i]=0; }
+                }
+            }
+            // suma v en [from, to)
+            void add(int from, int to, int v){
+                int l=from+h, r=to+h, l0=l, r0=r-1;
+                for (; l<r; l>>=1, r>>=1){
+                    if ((l&1)==1) apply(l++, v);
+                    if ((r&1)==1) apply(--r, v);
+                }
+                rebuild(l0); rebuild(r0);
+            }
+            // máximo en [from, to)
+            int max(int from, int to){
+                int l=from+h, r=to+h;
+                push(l); push(r-1);
+                int res=Integer.MIN_VALUE;
+                for (; l<r; l>>=1, r>>=1){
+                    if ((l&1)==1) res=Math.max(res, max[l++]);
+                    if ((r&1)==1) res=Math.max(res, max[--r]);
+                }
+                return res;
+            }
         }
         final int numSlots;
-        final World W;
-        final Map<String,Store> stores = new HashMap<>();
-
-        StockTracker(World W, int horizonDays){
-            this.W = W;
+        // por id de aeropuerto (ver Precomp); el árbol se crea al primer uso
+        final Store[] stores;
+        final int[] cap;
+        // los árboles se reutilizan entre decodes: uno con epoch viejo vale como vacío y
+        // se limpia al primer uso, así reset() no recorre los aeropuertos no tocados
+        int epoch = 1;
+
+        StockTracker(Precomp P, int horizonDays){
             this.numSlots = (horizonDays*1440)/SLOT_MIN + 5;
+            stores = new Store[P.airportOf.length];
+            cap = new int[P.airportOf.length];
+            for (int i=0;i<cap.length;i++) cap[i] = capacityOf(P.airportOf[i]);
         }
-        Store get(String ap){
-            return stores.computeIfAbsent(ap, k->new Store(numSlots));
+        Store get(int ap){
+            Store st = stores[ap];
+            if (st==null) st = stores[ap] = new Store(numSlots+1);
+            if (st.epoch!=epoch){ st.clear(); st.epoch = epoch; }
+            return st;
         }
-        int capacityOf(Airport a){
+        void reset(){ epoch++; }
+        static int capacityOf(Airport a){
             if (a==null) return Integer.MAX_VALUE;
             return a.isExporter ? Integer.MAX_VALUE : a.storageCap;
         }
-        boolean canFit(String ap, int slotStart, int slotEnd, int qty){
+        // ocupación máxima en [slotStart, slotEnd)
+        int peak(int ap, int slotStart, int slotEnd){
+            Store st = stores[ap];
+            if (st==null || st.epoch!=epoch) return 0;
+            return st.max(slotStart, slotEnd);
+        }
+        boolean canFit(int ap, int slotStart, int slotEnd, int qty){
             if (slotStart>=slotEnd || qty<=0) return true;
-            Airport a=W.airports.get(ap);
-            int cap = capacityOf(a);
-            if (cap==Integer.MAX_VALUE) return true;
-            Store st = get(ap);
-            if (st.dirty){
-                int run=0;
-                for (int i=0;i<st.pref.length;i++){ run += st.delta[i]; st.pref[i]=run; }
-                st.dirty=false;
-            }
-            for (int t=slotStart; t<slotEnd; t++){
-                if (st.pref[t] + qty > cap) return false;
-            }
-            return true;
+            if (cap[ap]==Integer.MAX_VALUE) return true;
+            return peak(ap, slotStart, slotEnd) + qty <= cap[ap];
         }
-        void addInterval(String ap, int slotStart, int slotEnd, int qty){
+        // lo que queda libre en todo [slotStart, slotEnd); sin tope, MAX_VALUE
+        int free(int ap, int slotStart, int slotEnd){
+            if (slotStart>=slotEnd) return Integer.MAX_VALUE;
+            if (cap[ap]==Integer.MAX_VALUE) return Integer.MAX_VALUE;
+            return Math.max(0, cap[ap] - peak(ap, slotStart, slotEnd));
+        }
+        void addInterval(int ap, int slotStart, int slotEnd, int qty){
             if (slotStart>=slotEnd || qty==0) return;
             Store st = get(ap);
-            st.delta[slotStart]+=qty; st.delta[slotEnd]-=qty;
-            st.dirty = true;
+            st.add(slotStart, slotEnd, qty);
         }
     }
 
     // ===================== Selección de vuelos (score heurístico) ====
-    static class FlightCandidate {
-        int fi, dayIndex, depUTC, arrUTC;
-        int avail;
-    }
-
-    static class LegStep {
-        int flightIndex;
-        int dayIndex;
-        int depUTC;
-        int arrUTC;
-        String waitAirport;
-        int waitStartSlot;
-        int waitEndSlot;
-        boolean requiresStorage;
+    // tramos elegidos para la subruta en curso (arreglos paralelos, reutilizados);
+    // waitAirport = -1 si el tramo no ocupa almacén mientras espera
+    static class LegPlan {
+        int[] fi = new int[8], day = new int[8], dep = new int[8], arr = new int[8];
+        int[] waitAirport = new int[8], waitStart = new int[8], waitEnd = new int[8];
+        int size;
+        void clear(){ size = 0; }
+        void add(int f, int d, int depUTC, int arrUTC, int wa, int ws, int we){
+            if (size == fi.length){
+                int n = size*2;
+                fi = Arrays.copyOf(fi, n); day = Arrays.copyOf(day, n); dep = Arrays.copyOf(dep, n); arr = Arrays.copyOf(arr, n);
+                waitAirport = Arrays.copyOf(waitAirport, n); waitStart = Arrays.copyOf(waitStart, n); waitEnd = Arrays.copyOf(waitEnd, n);
+            }
+            fi[size]=f; day[size]=d; dep[size]=depUTC; arr[size]=arrUTC;
+            waitAirport[size]=wa; waitStart[size]=ws; waitEnd[size]=we;
+            size++;
+        }
     }
 
-    static int maxStorageFit(StockTracker stock, String airport, int slotStart, int slotEnd, int maxQty) {
+    static int maxStorageFit(StockTracker stock, int airport, int slotStart, int slotEnd, int maxQty) {
         if (maxQty <= 0) return 0;
-        if (slotStart >= slotEnd) return maxQty;
-        int lo = 0, hi = maxQty;
-        while (lo < hi) {
-            int mid = (lo + hi + 1) >>> 1;
-            if (stock.canFit(airport, slotStart, slotEnd, mid)) lo = mid;
-            else hi = mid - 1;
-        }
-        return lo;
+        return Math.min(maxQty, stock.free(airport, slotStart, slotEnd));
     }
 
     static class SelectContext {
-        World W;
         Precomp P;
         Chromosome chrom;
-        String destTarget;
+        int destTarget;
         double wKey = 1.0, wEarly = 0.1, wGeo = 0.05; // pesos existentes
         // pesos para “más directo”
         double wDirect = 50.0;   // gran bonus si dest == target
         double wTwoHop = 5.0;    // bonus si hay vuelo directo desde next -> target
-        Map<String,Double> distToDestByAp = Collections.emptyMap();
+        double[] distToDestByAp;
         // aeropuertos con vuelo directo hacia el destino
-        Set<String> hasDirectToTarget = Collections.emptySet();
+        boolean[] hasDirectToTarget;
+        // si no es null, se anota el primer pedido que consultó cada key
+        int[] firstUse;
+        int orderIdx;
+    }
+
+    // candidatos (vuelo, día) en arreglos paralelos; se reutiliza en todo el decode
+    static class CandidateBuffer {
+        int[] fi = new int[64], day = new int[64], dep = new int[64], arr = new int[64], avail = new int[64];
+        int size;
+        // tope: seq es el orden de enumeración y heap un montículo de máximos por (arr, seq)
+        // sobre las posiciones, armado recién cuando el búfer se llena
+        int[] seq = new int[64], heap = new int[0], tmp = new int[0];
+        int seen;
+        boolean bounded;
+        void clear(){ size = 0; seen = 0; bounded = false; }
+        void add(int f, int d, int depUTC, int arrUTC, int av){
+            if (size == fi.length){
+                int n = size*2;
+                fi = Arrays.copyOf(fi, n); day = Arrays.copyOf(day, n); dep = Arrays.copyOf(dep, n);
+                arr = Arrays.copyOf(arr, n); avail = Arrays.copyOf(avail, n); seq = Arrays.copyOf(seq, n);
+            }
+            fi[size]=f; day[size]=d; dep[size]=depUTC; arr[size]=arrUTC; avail[size]=av; seq[size]=seen++;
+            size++;
+        }
+        // agrega conservando solo los k de arribo más temprano; a igual arribo gana el que se
+        // enumeró antes (lo mismo que el sort estable por arrUTC y corte en k)
+        void addTopK(int k, int f, int d, int depUTC, int arrUTC, int av){
+            if (size < k) { add(f, d, depUTC, arrUTC, av); return; }
+            if (!bounded){
+                if (heap.length < k) { heap = new int[k]; tmp = new int[k]; }
+                for (int i=0;i<size;i++) heap[i] = i;
+                for (int i=size/2-1;i>=0;i--) siftDown(i, size);
+                bounded = true;
+            }
+            int top = heap[0];
+            if (arrUTC >= arr[top]) return;
+            fi[top]=f; day[top]=d; dep[top]=depUTC; arr[top]=arrUTC; avail[top]=av; seq[top]=seen++;
+            siftDown(0, size);
+        }
+        // si hubo corte, deja los k en orden de arribo (heapsort del montículo y permutación)
+        void finishTopK(){
+            if (!bounded) return;
+            for (int n=size-1;n>0;n--){
+                int t = heap[0]; heap[0] = heap[n]; heap[n] = t;
+                siftDown(0, n);
+            }
+            permute(fi); permute(day); permute(dep); permute(arr); permute(avail);
+            bounded = false;
+        }
+        private void permute(int[] a){
+            for (int i=0;i<size;i++) tmp[i] = a[heap[i]];
+            System.arraycopy(tmp, 0, a, 0, size);
+        }
+        private boolean later(int a, int b){ return arr[a] > arr[b] || (arr[a] == arr[b] && seq[a] > seq[b]); }
+        private void siftDown(int i, int n){
+            int x = heap[i];
+            while (true){
+                int c = 2*i+1;
+                if (c >= n) break;
+                if (c+1 < n && later(heap[c+1], heap[c])) c++;
+                if (!later(heap[c], x)) break;
+                heap[i] = heap[c]; i = c;
+            }
+            heap[i] = x;
+        }
+        // quita la posición i conservando el orden (los empates de selectByPriority dependen de él)
+        void remove(int i){
+            int n = size-i-1;
+            System.arraycopy(fi, i+1, fi, i, n); System.arraycopy(day, i+1, day, i, n);
+            System.arraycopy(dep, i+1, dep, i, n); System.arraycopy(arr, i+1, arr, i, n);
+            System.arraycopy(avail, i+1, avail, i, n);
+            size--;
+        }
     }
 
-    static FlightCandidate selectByPriority(List<FlightCandidate> cand, SelectContext ctx){
-        if (cand.isEmpty()) return null;
+    // posición del mejor candidato, -1 si no hay
+    static int selectByPriority(CandidateBuffer cand, SelectContext ctx){
+        if (cand.size==0) return -1;
         int minArr = Integer.MAX_VALUE;
-        for (int i=0;i<cand.size();i++){
-            int v = cand.get(i).arrUTC;
+        for (int i=0;i<cand.size;i++){
+            int v = cand.arr[i];
             if (v<minArr) minArr = v;
         }
         double bestScore = -1e18;
-        FlightCandidate best = null;
-        for (int i=0;i<cand.size();i++){
-            FlightCandidate c = cand.get(i);
-            Flight f = ctx.W.flights.get(c.fi);
-            int idx = ctx.P.flightIndex.get(f);
-            double key = ctx.chrom.keys[idx];
+        int best = -1;
+        for (int i=0;i<cand.size;i++){
+            int fi = cand.fi[i];
+            double key = ctx.chrom.keys[fi];
+            if (ctx.firstUse!=null && ctx.firstUse[fi]==DecodeTrace.NONE) ctx.firstUse[fi] = ctx.orderIdx;
 
-            double timeGainHours = -((c.arrUTC - minArr) / 60.0);
+            double timeGainHours = -((cand.arr[i] - minArr) / 60.0);
 
-            Double db = ctx.distToDestByAp.get(f.orig);
-            Double da = ctx.distToDestByAp.get(f.dest);
-            double progress = 0.0;
-            if (db!=null && da!=null) progress = db - da;
+            // los candidatos salen del timeline: origen y destino siempre son conocidos
+            int orig = ctx.P.origOf[fi], dest = ctx.P.destOf[fi];
+            double progress = ctx.distToDestByAp[orig] - ctx.distToDestByAp[dest];
 
             // bonus por “más directo”
-            double directBonus = f.dest.equals(ctx.destTarget) ? ctx.wDirect : 0.0;
-            double twoHopBonus = ctx.hasDirectToTarget.contains(f.dest) ? ctx.wTwoHop : 0.0;
+            double directBonus = dest==ctx.destTarget ? ctx.wDirect : 0.0;
+            double twoHopBonus = ctx.hasDirectToTarget[dest] ? ctx.wTwoHop : 0.0;
 
             double score = ctx.wKey*key + ctx.wEarly*timeGainHours + ctx.wGeo*progress
                          + directBonus + twoHopBonus;
 
-            if (score > bestScore){ bestScore=score; best=c; }
+            if (score > bestScore){ bestScore=score; best=i; }
         }
         return best;
     }
@@ -519,265 +722,330 @@ public class MoraPackGAMensualNoBlock {
     static class DecodeContext {
         World W;
         int horizonDays;
-        Map<String,Integer> capUsedMap;
         Precomp P;
         StockTracker stock;
         Chromosome chrom;
         Random rnd;
         int numSlots;
-        List<FlightCandidate> candBuf = new ArrayList<>(64);
+        CandidateBuffer candBuf = new CandidateBuffer();
+        SelectContext sctx = new SelectContext();
+        LegPlan plan = new LegPlan(), bestPlan = new LegPlan();
         int[][] capUsed;
-        Map<String, Map<String,Double>> distCache = new HashMap<>();
-        Map<String, Set<String>> directCache = new HashMap<>();
+        long[] visited;     // bitset de aeropuertos ya pisados por la subruta en curso
+        boolean materialize;
+        // arribo de la última planSubrouteFromHub
+        int srArrival;
+        // reservas de destino del pedido en curso (fin y cantidad), para poder extenderlas
+        int[] holdEnd = new int[8], holdQty = new int[8];
+        // filas de capUsed tocadas en este decode: reset() solo limpia esas
+        boolean[] rowDirty;
+        int[] dirtyRows;
+        int numDirty;
+
+        DecodeTrace trace;  // diario del decode en curso (modo de fitness)
+
+        void useCapacity(int fi, int d, int qty){
+            if (!rowDirty[fi]){ rowDirty[fi] = true; dirtyRows[numDirty++] = fi; }
+            capUsed[fi][d] += qty;
+            if (trace!=null) trace.log(DecodeTrace.OP_CAPACITY, fi, d, 0, qty);
+        }
+        void useStorage(int ap, int slotStart, int slotEnd, int qty){
+            stock.addInterval(ap, slotStart, slotEnd, qty);
+            if (trace!=null) trace.log(DecodeTrace.OP_STORAGE, ap, slotStart, slotEnd, qty);
+        }
+        void reset(){
+            for (int i=0;i<numDirty;i++){ Arrays.fill(capUsed[dirtyRows[i]], 0); rowDirty[dirtyRows[i]] = false; }
+            numDirty = 0;
+            stock.reset();
+        }
     }
 
-    static String fkey(Flight f, int d){ return f.orig+">"+f.dest+"@D"+d+"#"+f.depLocalMin; }
-
-    static int computeDueForHub(World W, String hub, String dest, int releaseMinUTC){
-        Airport ah = W.airports.get(hub);
-        Airport ad = W.airports.get(dest);
-        boolean same = (ah!=null && ad!=null && ah.continent==ad.continent);
-        return releaseMinUTC + (same ? DUE_SAME_MIN : DUE_CROSS_MIN) + PICKUP_WINDOW_MIN;
+    // Un DecodeContext por hilo de evaluación, reutilizado mientras se decodifique con el
+    // mismo Precomp: en régimen el fitness no reserva capUsed ni árboles de almacén.
+    // Solo lo usa el modo de fitness; el decode que materializa (el final de runGA, que
+    // corre en el hilo del llamador) usa un contexto propio para no dejarlo retenido.
+    static final ThreadLocal<DecodeContext> WORKSPACE = new ThreadLocal<>();
+
+    static DecodeContext acquireContext(World W, Precomp P, int horizonDays){
+        DecodeContext dc = WORKSPACE.get();
+        if (dc!=null && dc.P==P && dc.horizonDays==horizonDays){
+            dc.reset();
+            return dc;
+        }
+        dc = newContext(W, P, horizonDays);
+        WORKSPACE.set(dc);
+        return dc;
     }
 
-    static List<String> hubs(World W){
-        return W.hubList;
+    static DecodeContext newContext(World W, Precomp P, int horizonDays){
+        DecodeContext dc = new DecodeContext();
+        dc.W=W; dc.horizonDays=horizonDays; dc.P=P; dc.stock=new StockTracker(P, horizonDays); dc.rnd=new Random();
+        dc.numSlots = (horizonDays*1440)/SLOT_MIN + 5;
+        dc.capUsed = new int[W.flights.size()][horizonDays];
+        dc.rowDirty = new boolean[W.flights.size()];
+        dc.dirtyRows = new int[W.flights.size()];
+        dc.visited = new long[(P.codeOf.length + 63) >>> 6];
+        dc.sctx.P = P;
+        return dc;
     }
 
-    static int enumerateCandidates(DecodeContext dc, String current, int tNowUTC, int dueLimit, int neededQty){
-        dc.candBuf.clear();
-        int[] outIdx = dc.P.outIdxByAirport.getOrDefault(current, null);
-        if (outIdx==null) return 0;
-
-        Airport aOrig = dc.W.airports.get(current);
-        if (aOrig==null) return 0;
+    // Rastro de un decode de fitness, para decodificar hijos por sufijo: el primer pedido
+    // que consultó cada key, el diario de efectos (capacidad y almacén) en el orden en que
+    // se aplicaron y los contadores al empezar cada pedido. El estado del decoder es la suma
+    // de esos efectos, así que el del inicio del pedido k se rehace reaplicando el diario
+    // hasta opsAt[k], sin guardar copias de capUsed ni de los árboles de almacén.
+    static class DecodeTrace {
+        static final int NONE = Integer.MAX_VALUE;
+        static final int OP_CAPACITY = 0, OP_STORAGE = 1, OP_LEN = 5;
+
+        final double[] keys;
+        final int[] firstUse;            // [fi] -> primer pedido que consultó la key
+        int[] ops = new int[OP_LEN*256];
+        int numOps;
+        final int[] opsAt;               // [k] tamaño del diario al empezar el pedido k
+        final int[] onTimeAt, lateAt, violAt, slackCntAt;
+        final long[] slackSumAt;
+        int reused;                      // pedidos tomados del rastro base
+
+        DecodeTrace(double[] keys, int numFlights, int numOrders){
+            this.keys = keys;
+            firstUse = new int[numFlights];
+            Arrays.fill(firstUse, NONE);
+            opsAt = new int[numOrders+1];
+            onTimeAt = new int[numOrders+1]; lateAt = new int[numOrders+1];
+            violAt = new int[numOrders+1]; slackCntAt = new int[numOrders+1];
+            slackSumAt = new long[numOrders+1];
+        }
 
-        final int minDeparture = tNowUTC + MIN_TURN_MIN;
+        void log(int op, int a, int b, int c, int qty){
+            if (numOps + OP_LEN > ops.length) ops = Arrays.copyOf(ops, ops.length*2);
+            ops[numOps]=op; ops[numOps+1]=a; ops[numOps+2]=b; ops[numOps+3]=c; ops[numOps+4]=qty;
+            numOps += OP_LEN;
+        }
 
-        for (int k=0; k<outIdx.length; k++){
-            int fi = outIdx[k];
-            Flight f = dc.W.flights.get(fi);
-            Airport aDest = dc.W.airports.get(f.dest);
-            if (aDest==null) continue;
+        void mark(int k, int onTime, int late, int viol, long slackSum, int slackCnt){
+            opsAt[k]=numOps; onTimeAt[k]=onTime; lateAt[k]=late; violAt[k]=viol;
+            slackSumAt[k]=slackSum; slackCntAt[k]=slackCnt;
+        }
 
-            int[] depPerDay = dc.P.depUTC[fi];
-            int[] arrPerDay = dc.P.arrUTC[fi];
+        // primer pedido que consultó alguna key distinta entre keys y otras (NONE si ninguna)
+        int firstDivergence(double[] other){
+            int start = NONE;
+            for (int fi=0; fi<keys.length; fi++)
+                if (firstUse[fi]<start && keys[fi]!=other[fi]) start = firstUse[fi];
+            return start;
+        }
 
-            int baseDep = depPerDay[0];
-            if (baseDep > dueLimit) continue;
+        // lo que base hizo en [0, start) vale igual para este decode
+        void copyPrefix(DecodeTrace base, int start){
+            for (int fi=0; fi<firstUse.length; fi++) if (base.firstUse[fi]<start) firstUse[fi] = base.firstUse[fi];
+            numOps = base.opsAt[start];
+            if (ops.length < numOps) ops = new int[numOps + OP_LEN*256];
+            System.arraycopy(base.ops, 0, ops, 0, numOps);
+            System.arraycopy(base.opsAt, 0, opsAt, 0, start);
+            System.arraycopy(base.onTimeAt, 0, onTimeAt, 0, start);
+            System.arraycopy(base.lateAt, 0, lateAt, 0, start);
+            System.arraycopy(base.violAt, 0, violAt, 0, start);
+            System.arraycopy(base.slackSumAt, 0, slackSumAt, 0, start);
+            System.arraycopy(base.slackCntAt, 0, slackCntAt, 0, start);
+        }
 
-            int dStart;
-            if (minDeparture <= baseDep) dStart = 0;
-            else {
-                int delta = minDeparture - baseDep;
-                dStart = delta / 1440;
-                if (delta % 1440 != 0) dStart++;
+        // aplica sobre dc (recién reiniciado y sin diario propio) los efectos de [0, start)
+        void replay(DecodeContext dc, int start){
+            for (int i=0, end=opsAt[start]; i<end; i+=OP_LEN){
+                if (ops[i]==OP_CAPACITY) dc.useCapacity(ops[i+1], ops[i+2], ops[i+4]);
+                else dc.stock.addInterval(ops[i+1], ops[i+2], ops[i+3], ops[i+4]);
             }
-            if (dStart < 0) dStart = 0;
-
-            for (int d=dStart; d<dc.horizonDays; d++){
-                int depUTC = depPerDay[d];
-                if (depUTC < minDeparture) continue;
-                if (depUTC > dueLimit) break;
-
-                int arrUTC = arrPerDay[d];
-                if (arrUTC > dueLimit) continue;
+        }
+    }
 
-                int used = dc.capUsed[fi][d];
-                int avail = f.capacity - used;
-                if (avail <= 0) continue;
+    static String fkey(Flight f, int d){ return f.orig+">"+f.dest+"@D"+d+"#"+f.depLocalMin; }
 
-                FlightCandidate fc = new FlightCandidate();
-                fc.fi = fi; fc.dayIndex = d; fc.depUTC = depUTC; fc.arrUTC = arrUTC; fc.avail = avail;
-                dc.candBuf.add(fc);
-            }
-        }
+    static int computeDueForHub(World W, String hub, String dest, int releaseMinUTC){
+        Airport ah = W.airports.get(hub);
+        Airport ad = W.airports.get(dest);
+        boolean same = (ah!=null && ad!=null && ah.continent==ad.continent);
+        return releaseMinUTC + (same ? DUE_SAME_MIN : DUE_CROSS_MIN) + PICKUP_WINDOW_MIN;
+    }
 
-        if (dc.candBuf.size() > TOPK_CANDIDATES) {
-            dc.candBuf.sort(Comparator.comparingInt(c -> c.arrUTC));
-            dc.candBuf.subList(TOPK_CANDIDATES, dc.candBuf.size()).clear();
-        }
-        return dc.candBuf.size();
+    // misma regla con ids (decode)
+    static int computeDueForHub(Precomp P, int hub, int dest, int releaseMinUTC){
+        boolean same = P.airportOf[hub].continent==P.airportOf[dest].continent;
+        return releaseMinUTC + (same ? DUE_SAME_MIN : DUE_CROSS_MIN) + PICKUP_WINDOW_MIN;
     }
 
-    static Map<String,Double> distancesToDest(DecodeContext dc, String dest){
-        return dc.distCache.computeIfAbsent(dest, key -> {
-            Map<String,Double> map = new HashMap<>(dc.W.airports.size());
-            Airport target = dc.W.airports.get(dest);
-            if (target != null){
-                for (Airport a : dc.W.airports.values()){
-                    double d = haversineKm(a.lat, a.lon, target.lat, target.lon);
-                    map.put(a.code, d);
-                }
-            }
-            return map;
-        });
+    static List<String> hubs(World W){
+        return W.hubList;
     }
 
-    static Set<String> directOriginsToDest(DecodeContext dc, String dest){
-        return dc.directCache.computeIfAbsent(dest, key -> {
-            Set<String> origins = new HashSet<>();
-            for (Map.Entry<String,List<Flight>> e : dc.W.outByAirport.entrySet()){
-                for (Flight f : e.getValue()){
-                    if (f.dest.equals(dest)){
-                        origins.add(e.getKey());
-                        break;
-                    }
-                }
-            }
-            return origins;
-        });
+    // Salidas desde current en [tNow + MIN_TURN_MIN, dueLimit] que lleguen a tiempo y tengan
+    // capacidad: búsqueda binaria en el timeline del aeropuerto y recorrido hacia adelante.
+    // Quedan en orden de salida; si pasan de TOPK_CANDIDATES se guardan las TOPK de arribo
+    // más temprano, en orden de arribo.
+    static int enumerateCandidates(DecodeContext dc, int current, int tNowUTC, int dueLimit, int neededQty){
+        CandidateBuffer cb = dc.candBuf;
+        cb.clear();
+        Timeline tl = dc.P.timelineOf[current];
+        if (tl==null) return 0;
+
+        final int minDeparture = tNowUTC + MIN_TURN_MIN;
+        for (int i=tl.firstAtOrAfter(minDeparture); i<tl.dep.length; i++){
+            if (tl.dep[i] > dueLimit) break;
+            if (tl.arr[i] > dueLimit) continue;
+            int fi = tl.fi[i], d = tl.day[i];
+            int avail = dc.W.flights.get(fi).capacity - dc.capUsed[fi][d];
+            if (avail <= 0) continue;
+            cb.addTopK(TOPK_CANDIDATES, fi, d, tl.dep[i], tl.arr[i], avail);
+        }
+        cb.finishTopK();
+        return cb.size;
     }
 
-    // Construye UNA subruta completa desde un hub hasta el destino
-    static SubRoute buildSubrouteFromHub(DecodeContext dc, Order o, String hub, int dueLimit, int blockQty){
-        if (blockQty <= 0) return null;
+    static boolean isVisited(long[] bits, int ap){ return (bits[ap>>>6] & (1L<<ap)) != 0; }
+    static void markVisited(long[] bits, int ap){ bits[ap>>>6] |= 1L<<ap; }
+
+    // Busca UNA subruta completa desde un hub hasta el destino (ids de aeropuerto) sin tocar
+    // capUsed ni el almacén: deja los tramos en dc.plan y el arribo en dc.srArrival y devuelve
+    // la cantidad que puede mover (0 si no hay subruta). La aplica commitSubroute.
+    static int planSubrouteFromHub(DecodeContext dc, Order o, int dest, int hub, int dueLimit, int blockQty){
+        if (blockQty <= 0) return 0;
 
-        String current = hub;
+        int current = hub;
         int tNow = o.releaseMinUTC;
         int requestQty = blockQty;
 
-        SelectContext sctx = new SelectContext();
-        sctx.W = dc.W; sctx.P = dc.P; sctx.chrom = dc.chrom; sctx.destTarget = o.dest;
-        sctx.distToDestByAp = distancesToDest(dc, o.dest);
-        sctx.hasDirectToTarget = directOriginsToDest(dc, o.dest);
+        SelectContext sctx = dc.sctx;
+        sctx.destTarget = dest;
+        sctx.distToDestByAp = dc.P.distToDest[dest];
+        sctx.hasDirectToTarget = dc.P.directToDest[dest];
 
         int expansions = 0, maxExp = 2000;
         boolean firstLeg = true;
-        Set<String> visited = new HashSet<>();
-        visited.add(hub);
+        long[] visited = dc.visited;
+        Arrays.fill(visited, 0L);
+        markVisited(visited, hub);
 
-        List<LegStep> plan = new ArrayList<>(8);
+        LegPlan plan = dc.plan;
+        plan.clear();
         int pathCapacity = requestQty;
         int lastArrivalUTC = -1;
 
-        while (!current.equals(o.dest) && expansions++ < maxExp) {
+        while (current != dest && expansions++ < maxExp) {
             int neededQty = Math.max(1, pathCapacity);
             int cc = enumerateCandidates(dc, current, tNow, dueLimit, neededQty);
-            if (cc==0) return null;
-
-            dc.candBuf.removeIf(c -> {
-                String next = dc.W.flights.get(c.fi).dest;
-                return visited.contains(next);
-            });
-            if (dc.candBuf.isEmpty()) return null;
+            if (cc==0) return 0;
+
+            CandidateBuffer cb = dc.candBuf;
+            int kept = 0;
+            for (int i=0;i<cb.size;i++){
+                if (isVisited(visited, dc.P.destOf[cb.fi[i]])) continue;
+                cb.fi[kept]=cb.fi[i]; cb.day[kept]=cb.day[i]; cb.dep[kept]=cb.dep[i];
+                cb.arr[kept]=cb.arr[i]; cb.avail[kept]=cb.avail[i];
+                kept++;
+            }
+            cb.size = kept;
+            if (cb.size==0) return 0;
 
-            FlightCandidate chosen = null;
+            boolean chosen = false;
             while (true) {
-                FlightCandidate best = selectByPriority(dc.candBuf, sctx);
-                if (best == null) return null;
+                int best = selectByPriority(cb, sctx);
+                if (best < 0) return 0;
 
-                Flight flight = dc.W.flights.get(best.fi);
-                int legAvail = best.avail;
+                int legAvail = cb.avail[best];
                 if (legAvail <= 0) {
-                    dc.candBuf.remove(best);
-                    if (dc.candBuf.isEmpty()) return null;
+                    cb.remove(best);
+                    if (cb.size==0) return 0;
                     continue;
                 }
 
                 int proposedCapacity = Math.min(pathCapacity, legAvail);
                 if (proposedCapacity <= 0) {
-                    dc.candBuf.remove(best);
-                    if (dc.candBuf.isEmpty()) return null;
+                    cb.remove(best);
+                    if (cb.size==0) return 0;
                     continue;
                 }
 
-                String waitAirport = null;
+                int waitAirport = -1;
                 int waitStartSlot = 0;
                 int waitEndSlot = 0;
-                boolean requiresStorage = false;
 
-                Airport apCur = dc.W.airports.get(current);
-                boolean curIsHub = (apCur!=null && apCur.isExporter);
+                boolean curIsHub = dc.P.airportOf[current].isExporter;
                 if (!firstLeg && !curIsHub) {
-                    waitAirport = current;
                     waitStartSlot = slotOf(tNow, dc.numSlots);
-                    waitEndSlot = slotOf(best.depUTC, dc.numSlots);
+                    waitEndSlot = slotOf(cb.dep[best], dc.numSlots);
                     if (waitStartSlot < waitEndSlot) {
-                        int fit = maxStorageFit(dc.stock, waitAirport, waitStartSlot, waitEndSlot, proposedCapacity);
+                        int fit = maxStorageFit(dc.stock, current, waitStartSlot, waitEndSlot, proposedCapacity);
                         if (fit <= 0) {
-                            dc.candBuf.remove(best);
-                            if (dc.candBuf.isEmpty()) return null;
+                            cb.remove(best);
+                            if (cb.size==0) return 0;
                             continue;
                         }
                         proposedCapacity = Math.min(proposedCapacity, fit);
-                        requiresStorage = true;
+                        waitAirport = current;
                     }
                 }
 
                 pathCapacity = proposedCapacity;
 
-                LegStep step = new LegStep();
-                step.flightIndex = best.fi;
-                step.dayIndex = best.dayIndex;
-                step.depUTC = best.depUTC;
-                step.arrUTC = best.arrUTC;
-                step.waitAirport = waitAirport;
-                step.waitStartSlot = waitStartSlot;
-                step.waitEndSlot = waitEndSlot;
-                step.requiresStorage = requiresStorage;
-                plan.add(step);
-
-                current = flight.dest;
-                tNow = best.arrUTC;
+                plan.add(cb.fi[best], cb.day[best], cb.dep[best], cb.arr[best], waitAirport, waitStartSlot, waitEndSlot);
+
+                current = dc.P.destOf[cb.fi[best]];
+                tNow = cb.arr[best];
                 lastArrivalUTC = tNow;
                 firstLeg = false;
-                visited.add(current);
-                chosen = best;
+                markVisited(visited, current);
+                chosen = true;
                 break;
             }
 
-            if (chosen == null) return null;
+            if (!chosen) return 0;
         }
 
-        if (!current.equals(o.dest)) return null;
-        if (plan.isEmpty()) return null;
-        if (pathCapacity <= 0) return null;
+        if (current != dest) return 0;
+        if (plan.size==0) return 0;
+        if (pathCapacity <= 0) return 0;
 
         int finalQty = Math.min(pathCapacity, requestQty);
-        if (finalQty <= 0) return null;
+        if (finalQty <= 0) return 0;
 
         int destStartSlot = slotOf(lastArrivalUTC, dc.numSlots);
         int destEndSlot = slotOf(lastArrivalUTC + PICKUP_WINDOW_MIN, dc.numSlots);
-        int destFit = maxStorageFit(dc.stock, o.dest, destStartSlot, destEndSlot, finalQty);
-        if (destFit <= 0) return null;
+        int destFit = maxStorageFit(dc.stock, dest, destStartSlot, destEndSlot, finalQty);
+        if (destFit <= 0) return 0;
         finalQty = Math.min(finalQty, destFit);
-        if (finalQty <= 0) return null;
-
-        SubRoute sr = new SubRoute();
-        sr.originHub = hub;
-        sr.qty = finalQty;
-        sr.arrivalUTC = lastArrivalUTC;
-
-        for (LegStep step : plan) {
-            Flight flight = dc.W.flights.get(step.flightIndex);
-            if (step.requiresStorage) {
-                dc.stock.addInterval(step.waitAirport, step.waitStartSlot, step.waitEndSlot, finalQty);
-            }
-
-            int used = dc.capUsed[step.flightIndex][step.dayIndex];
-            dc.capUsed[step.flightIndex][step.dayIndex] = used + finalQty;
+        if (finalQty <= 0) return 0;
 
-            String key = fkey(flight, step.dayIndex);
-            int usedMap = dc.capUsedMap.getOrDefault(key, 0);
-            dc.capUsedMap.put(key, usedMap + finalQty);
+        dc.srArrival = lastArrivalUTC;
+        return finalQty;
+    }
 
-            sr.legs.add(new FlightUse(flight, step.dayIndex, step.depUTC, step.arrUTC, finalQty));
+    // Aplica el plan ganador: capacidad de cada tramo, esperas en almacén y la ventana de
+    // recojo en destino. Con dc.materialize devuelve la SubRoute con sus tramos.
+    static SubRoute commitSubroute(DecodeContext dc, LegPlan plan, int dest, int hub, int qty, int arrivalUTC){
+        SubRoute sr = null;
+        if (dc.materialize) {
+            sr = new SubRoute();
+            sr.originHub = dc.P.codeOf[hub];
+            sr.hubId = hub;
+            sr.qty = qty;
+            sr.arrivalUTC = arrivalUTC;
         }
 
-        dc.stock.addInterval(o.dest, destStartSlot, destEndSlot, finalQty);
+        for (int i=0;i<plan.size;i++) {
+            if (plan.waitAirport[i] >= 0) {
+                dc.useStorage(plan.waitAirport[i], plan.waitStart[i], plan.waitEnd[i], qty);
+            }
+            dc.useCapacity(plan.fi[i], plan.day[i], qty);
+            if (sr != null)
+                sr.legs.add(new FlightUse(dc.W.flights.get(plan.fi[i]), plan.day[i], plan.dep[i], plan.arr[i], qty));
+        }
 
+        int destStartSlot = slotOf(arrivalUTC, dc.numSlots);
+        int destEndSlot = slotOf(arrivalUTC + PICKUP_WINDOW_MIN, dc.numSlots);
+        dc.useStorage(dest, destStartSlot, destEndSlot, qty);
         return sr;
     }
 
-    // estructura para llevar las reservas de destino de un pedido y poder extenderlas
-    static class DestReservation {
-        int startSlot;
-        int endSlot;
-        int qty;
-        DestReservation(int s, int e, int q){ startSlot=s; endSlot=e; qty=q; }
-    }
-
     static Solution decode(World W, List<Order> orders, Chromosome chrom, int horizonDays, long seed){
         Precomp precomputed = precompute(W, horizonDays);
         List<Order> ordSorted = new ArrayList<>(orders);
@@ -792,61 +1060,99 @@ public class MoraPackGAMensualNoBlock {
     }
 
     static Solution decodeSorted(World W, List<Order> ordSorted, Chromosome chrom, int horizonDays, long seed, Precomp precomputed){
+        return decodeSorted(W, ordSorted, chrom, horizonDays, seed, precomputed, true);
+    }
+
+    // materialize=false es el modo de fitness: mismas decisiones y mismos contadores, pero
+    // sin SubRoute/FlightUse ni mapa de rutas (sol.routes queda vacío); deja el rastro en sol.trace
+    static Solution decodeSorted(World W, List<Order> ordSorted, Chromosome chrom, int horizonDays, long seed,
+                                 Precomp precomputed, boolean materialize){
+        return decodeSorted(W, ordSorted, chrom, horizonDays, seed, precomputed, materialize, null, 0);
+    }
+
+    // Con base != null (solo en modo de fitness) los pedidos [0, start) se toman del rastro
+    // de base: se reaplica su diario y sus contadores y se decodifica desde start. Vale si
+    // ninguna key en la que chrom difiere de base.keys se consultó antes de start.
+    static Solution decodeSorted(World W, List<Order> ordSorted, Chromosome chrom, int horizonDays, long seed,
+                                 Precomp precomputed, boolean materialize, DecodeTrace base, int start){
         Solution sol = new Solution();
-        sol.capUsed = new HashMap<>();
-        StockTracker stock = new StockTracker(W, horizonDays);
         Precomp P = precomputed;
+        DecodeContext dc = materialize ? newContext(W, P, horizonDays) : acquireContext(W, P, horizonDays);
+        StockTracker stock = dc.stock;
+        dc.chrom = chrom; dc.rnd.setSeed(seed);
+        dc.materialize = materialize;
+        dc.sctx.chrom = chrom;
 
-        DecodeContext dc = new DecodeContext();
-        dc.W=W; dc.horizonDays=horizonDays; dc.capUsedMap=sol.capUsed; dc.P=P; dc.stock=stock; dc.chrom=chrom; dc.rnd=new Random(seed);
-        dc.numSlots = (horizonDays*1440)/SLOT_MIN + 5;
-        dc.capUsed = new int[W.flights.size()][horizonDays];
+        int[] holdEnd = dc.holdEnd, holdQty = dc.holdQty;
 
         int onTime=0, late=0, viol=0; long slackSum=0; int slackCnt=0;
 
-        for (Order o: ordSorted){
+        DecodeTrace tr = materialize ? null : new DecodeTrace(chrom.keys, W.flights.size(), ordSorted.size());
+        int first = 0;
+        if (tr!=null && base!=null && start>0){
+            tr.copyPrefix(base, start);
+            tr.reused = start;
+            if (start < ordSorted.size()) base.replay(dc, start);
+            onTime = base.onTimeAt[start]; late = base.lateAt[start]; viol = base.violAt[start];
+            slackSum = base.slackSumAt[start]; slackCnt = base.slackCntAt[start];
+            first = start;
+        }
+        dc.trace = tr;
+        dc.sctx.firstUse = (tr==null) ? null : tr.firstUse;
+
+        for (int k=first; k<ordSorted.size(); k++){
+            if (tr!=null) tr.mark(k, onTime, late, viol, slackSum, slackCnt);
+            dc.sctx.orderIdx = k;
+            Order o = ordSorted.get(k);
+            int dest = P.idOf(o.dest);
             int remaining = o.qty;
-            List<SubRoute> subroutes = new ArrayList<>(4);
+            List<SubRoute> subroutes = materialize ? new ArrayList<>(4) : null;
 
-            // reservas de destino para poder extenderlas cuando cambie el “último arribo”
-            List<DestReservation> destHolds = new ArrayList<>();
-            int lastArrival = -1;
+            int holds = 0;
+            int lastArrival = -1, critHub = -1;
 
             int guard=0, guardMax=500;
-            while (remaining>0 && guard++<guardMax){
-                SubRoute bestSr = null;
+            while (dest>=0 && remaining>0 && guard++<guardMax){
+                int bestQty = 0, bestHub = -1;
                 int bestArr = Integer.MAX_VALUE;
                 int requestQty = remaining;
 
-                for (String hub: hubs(W)) {
-                    int due = computeDueForHub(W, hub, o.dest, o.releaseMinUTC);
-                    SubRoute sr = buildSubrouteFromHub(dc, o, hub, due, requestQty);
-                    if (sr != null && sr.qty > 0 && sr.arrivalUTC < bestArr) {
-                        bestArr = sr.arrivalUTC;
-                        bestSr = sr;
+                // todos los hubs se prueban sobre el mismo estado; solo el ganador reserva
+                for (int hub: P.hubIds) {
+                    int due = computeDueForHub(P, hub, dest, o.releaseMinUTC);
+                    int q = planSubrouteFromHub(dc, o, dest, hub, due, requestQty);
+                    if (q > 0 && dc.srArrival < bestArr) {
+                        bestArr = dc.srArrival;
+                        bestQty = q;
+                        bestHub = hub;
+                        LegPlan t = dc.bestPlan; dc.bestPlan = dc.plan; dc.plan = t;
                     }
                 }
 
-                if (bestSr == null) break;
+                if (bestQty == 0) break;
+                SubRoute bestSr = commitSubroute(dc, dc.bestPlan, dest, bestHub, bestQty, bestArr);
 
-                // registrar la reserva mínima que ya hizo buildSubroute...
-                int start = slotOf(bestSr.arrivalUTC, dc.numSlots);
-                int end   = slotOf(bestSr.arrivalUTC + PICKUP_WINDOW_MIN, dc.numSlots);
-                destHolds.add(new DestReservation(start, end, bestSr.qty));
+                // registrar la reserva mínima que ya hizo commitSubroute...
+                if (holds == holdEnd.length){
+                    holdEnd = dc.holdEnd = Arrays.copyOf(holdEnd, holds*2); holdQty = dc.holdQty = Arrays.copyOf(holdQty, holds*2);
+                }
+                holdEnd[holds] = slotOf(bestArr + PICKUP_WINDOW_MIN, dc.numSlots);
+                holdQty[holds] = bestQty;
+                holds++;
 
-                subroutes.add(bestSr);
-                remaining -= bestSr.qty;
+                if (subroutes != null) subroutes.add(bestSr);
+                remaining -= bestQty;
 
                 // actualizar “último arribo” y EXTENDER todas las reservas de destino hasta (last+120)
-                if (bestSr.arrivalUTC > lastArrival) {
-                    int newLast = bestSr.arrivalUTC;
+                if (bestArr > lastArrival) {
+                    int newLast = bestArr;
                     int newEnd = slotOf(newLast + PICKUP_WINDOW_MIN, dc.numSlots);
-                    for (DestReservation r: destHolds){
-                        if (r.endSlot < newEnd){
-                            // verificar sólo el tramo adicional [r.endSlot, newEnd)
-                            if (stock.canFit(o.dest, r.endSlot, newEnd, r.qty)) {
-                                stock.addInterval(o.dest, r.endSlot, newEnd, r.qty);
-                                r.endSlot = newEnd;
+                    for (int r=0; r<holds; r++){
+                        if (holdEnd[r] < newEnd){
+                            // verificar sólo el tramo adicional [holdEnd, newEnd)
+                            if (stock.canFit(dest, holdEnd[r], newEnd, holdQty[r])) {
+                                dc.useStorage(dest, holdEnd[r], newEnd, holdQty[r]);
+                                holdEnd[r] = newEnd;
                             } else {
                                 // no cabe la extensión -> contamos violación (penaliza objetivo)
                                 viol++;
@@ -854,43 +1160,282 @@ public class MoraPackGAMensualNoBlock {
                         }
                     }
                     lastArrival = newLast;
+                    critHub = bestHub;
                 }
             }
 
-            sol.routes.put(o, subroutes);
-
-            int delivered = 0;
-            for (int i=0;i<subroutes.size();i++) delivered += subroutes.get(i).qty;
+            if (subroutes != null) sol.routes.put(o, subroutes);
 
-            if (delivered < o.qty) {
+            // la subruta crítica es la primera en alcanzar el último arribo
+            if (remaining > 0 || critHub < 0) {
                 late++;
             } else {
-                SubRoute crit = null;
-                int maxArr = Integer.MIN_VALUE;
-                for (int i=0;i<subroutes.size();i++){
-                    SubRoute s = subroutes.get(i);
-                    if (s.arrivalUTC > maxArr){ maxArr = s.arrivalUTC; crit = s; }
-                }
-                if (crit != null){
-                    int dueCrit = computeDueForHub(W, crit.originHub, o.dest, o.releaseMinUTC);
-                    if (crit.arrivalUTC <= dueCrit) {
-                        onTime++;
-                        slackSum += (dueCrit - crit.arrivalUTC);
-                        slackCnt++;
-                    } else late++;
+                int dueCrit = computeDueForHub(P, critHub, dest, o.releaseMinUTC);
+                if (lastArrival <= dueCrit) {
+                    onTime++;
+                    slackSum += (dueCrit - lastArrival);
+                    slackCnt++;
                 } else late++;
             }
         }
 
+        if (tr!=null) tr.mark(ordSorted.size(), onTime, late, viol, slackSum, slackCnt);
+        dc.trace = null;
+        dc.sctx.firstUse = null;
+        sol.trace = tr;
+
+        // capUsed es del workspace del hilo: la solución materializada se lleva una copia
+        if (materialize){
+            sol.capUsed = new int[dc.capUsed.length][];
+            for (int fi=0; fi<dc.capUsed.length; fi++) sol.capUsed[fi] = dc.capUsed[fi].clone();
+        }
+
         sol.servedOnTime = onTime; sol.servedLate = late; sol.capViol = viol;
         sol.avgSlack = (slackCnt==0)?0:(int)(slackSum/slackCnt);
-        sol.objective = LAMBDA_ONTIME*onTime - LAMBDA_LATE*late - LAMBDA_CAPVIO*viol + LAMBDA_SLACK*sol.avgSlack;
+        sol.service = LAMBDA_ONTIME*onTime - LAMBDA_LATE*late - LAMBDA_CAPVIO*viol;
+        sol.objective = sol.service + LAMBDA_SLACK*sol.avgSlack;
         return sol;
     }
 
+    // ===================== Cota por flujo máximo =====================
+    // Red expandida en el tiempo: nodo = (aeropuerto, instante listo para salir), arcos
+    // vuelo-día con su capacidad, esperas entre nodos consecutivos (con tope de almacén
+    // fuera de los hubs cuando cruzan un slot), fuentes en los hubs a la liberación y
+    // sumideros al vencimiento más holgado de cada orden. Lo que llega a un destino pasa
+    // a una cadena "entregado" sin tope. El flujo máximo acota la cantidad a tiempo.
+    static class MaxFlow {
+        static final long INF = Long.MAX_VALUE / 4;
+        final int n;
+        final int[] head;
+        int[] to = new int[16], next = new int[16];
+        long[] cap = new long[16];
+        int m = 0;
+        int[] level, it, queue, stack;
+
+        MaxFlow(int n){ this.n=n; head=new int[n]; Arrays.fill(head,-1); }
+
+        void addEdge(int u, int v, long c){
+            if (m+2 > to.length){
+                to=Arrays.copyOf(to,to.length*2); next=Arrays.copyOf(next,next.length*2); cap=Arrays.copyOf(cap,cap.length*2);
+            }
+            to[m]=v; cap[m]=c; next[m]=head[u]; head[u]=m++;
+            to[m]=u; cap[m]=0; next[m]=head[v]; head[v]=m++;
+        }
+
+        long solve(int s, int t){
+            level=new int[n]; it=new int[n]; queue=new int[n]; stack=new int[n];
+            long flow=0;
+            while (bfs(s,t)){
+                System.arraycopy(head,0,it,0,n);
+                flow += blocking(s,t);
+            }
+            return flow;
+        }
+
+        boolean bfs(int s, int t){
+            Arrays.fill(level,-1);
+            int qh=0, qt=0;
+            level[s]=0; queue[qt++]=s;
+            while (qh<qt){
+                int u=queue[qh++];
+                for (int e=head[u]; e!=-1; e=next[e])
+                    if (cap[e]>0 && level[to[e]]<0){ level[to[e]]=level[u]+1; queue[qt++]=to[e]; }
+            }
+            return level[t]>=0;
+        }
+
+        // DFS iterativa (las cadenas de espera son largas para la pila de Java)
+        long blocking(int s, int t){
+            long flow=0;
+            int depth=0, u=s;
+            while (true){
+                if (u==t){
+                    long f=INF;
+                    for (int i=0;i<depth;i++) f=Math.min(f,cap[stack[i]]);
+                    int cut=depth;
+                    for (int i=depth-1;i>=0;i--){
+                        int e=stack[i];
+                        cap[e]-=f; cap[e^1]+=f;
+                        if (cap[e]==0) cut=i;
+                    }
+                    flow+=f;
+                    depth=cut;
+                    u=(depth==0)?s:to[stack[depth-1]];
+                    continue;
+                }
+                int e=it[u];
+                while (e!=-1 && (cap[e]==0 || level[to[e]]!=level[u]+1)) e=next[e];
+                it[u]=e;
+                if (e!=-1){ stack[depth++]=e; u=to[e]; continue; }
+                if (u==s) return flow;
+                level[u]=-1;
+                depth--;
+                u=to[stack[depth]^1];
+                it[u]=next[it[u]];
+            }
+        }
+    }
+
+    static int maxDueForOrder(World W, Order o){
+        int due = Integer.MIN_VALUE;
+        for (String h : hubs(W)) due = Math.max(due, computeDueForHub(W, h, o.dest, o.releaseMinUTC));
+        return due;
+    }
+
+    // aeropuerto en los 32 bits altos; el tiempo va corrido porque puede ser negativo
+    static long nodeKey(int ap, int t){ return ((long)ap << 32) + (t + (1 << 20)); }
+    static int keyTime(long key){ return (int)(key & 0xffffffffL) - (1 << 20); }
+
+    static long onTimeQtyBound(World W, List<Order> orders, int horizonDays, Precomp P){
+        Map<String,Integer> apIdx = new HashMap<>();
+        for (String code : W.airports.keySet()) apIdx.put(code, apIdx.size());
+
+        // eventos (aeropuerto, instante) -> nodos, ordenados por aeropuerto y tiempo
+        List<Long> ev = new ArrayList<>();
+        for (int fi=0; fi<W.flights.size(); fi++){
+            Flight f = W.flights.get(fi);
+            if (!apIdx.containsKey(f.orig) || !apIdx.containsKey(f.dest)) continue;
+            for (int d=0; d<horizonDays; d++){
+                ev.add(nodeKey(apIdx.get(f.orig), P.depUTC[fi][d]));
+                ev.add(nodeKey(apIdx.get(f.dest), P.arrUTC[fi][d] + MIN_TURN_MIN));
+            }
+        }
+        for (Order o : orders){
+            if (!apIdx.containsKey(o.dest)) continue;
+            ev.add(nodeKey(apIdx.get(o.dest), maxDueForOrder(W, o) + MIN_TURN_MIN));
+            for (String h : hubs(W)) ev.add(nodeKey(apIdx.get(h), o.releaseMinUTC + MIN_TURN_MIN));
+        }
+        long[] keys = ev.stream().mapToLong(Long::longValue).sorted().distinct().toArray();
+        int n = keys.length;
+
+        Set<Integer> destAps = new HashSet<>();
+        for (Order o : orders) if (apIdx.containsKey(o.dest)) destAps.add(apIdx.get(o.dest));
+        String[] codeOf = new String[apIdx.size()];
+        for (Map.Entry<String,Integer> e : apIdx.entrySet()) codeOf[e.getValue()] = e.getKey();
+
+        int numSlots = (horizonDays*1440)/SLOT_MIN + 5;   // como StockTracker
+        int src = 2*n + orders.size(), sink = src + 1;
+        MaxFlow g = new MaxFlow(sink + 1);
+        for (int fi=0; fi<W.flights.size(); fi++){
+            Flight f = W.flights.get(fi);
+            if (!apIdx.containsKey(f.orig) || !apIdx.containsKey(f.dest)) continue;
+            for (int d=0; d<horizonDays; d++){
+                int u = Arrays.binarySearch(keys, nodeKey(apIdx.get(f.orig), P.depUTC[fi][d]));
+                int v = Arrays.binarySearch(keys, nodeKey(apIdx.get(f.dest), P.arrUTC[fi][d] + MIN_TURN_MIN));
+                g.addEdge(u, v, f.capacity);
+            }
+        }
+        for (int i=0; i+1<n; i++){
+            int ap = (int)(keys[i] >>> 32);
+            if (ap != (int)(keys[i+1] >>> 32)) continue;
+            int t1 = keyTime(keys[i]), t2 = keyTime(keys[i+1]);
+            Airport a = W.airports.get(codeOf[ap]);
+            boolean stored = a != null && !a.isExporter && slotOf(t1, numSlots) != slotOf(t2, numSlots);
+            g.addEdge(i, i+1, stored ? a.storageCap : MaxFlow.INF);
+            if (destAps.contains(ap)) g.addEdge(n+i, n+i+1, MaxFlow.INF);
+        }
+        for (int i=0; i<n; i++) if (destAps.contains((int)(keys[i] >>> 32))) g.addEdge(i, n+i, MaxFlow.INF);
+
+        long[] demand = new long[n];
+        for (int j=0; j<orders.size(); j++){
+            Order o = orders.get(j);
+            if (!apIdx.containsKey(o.dest)) continue;
+            demand[Arrays.binarySearch(keys, nodeKey(apIdx.get(o.dest), maxDueForOrder(W, o) + MIN_TURN_MIN))] += o.qty;
+            g.addEdge(src, 2*n + j, o.qty);
+            for (String h : hubs(W))
+                g.addEdge(2*n + j, Arrays.binarySearch(keys, nodeKey(apIdx.get(h), o.releaseMinUTC + MIN_TURN_MIN)), MaxFlow.INF);
+        }
+        for (int i=0; i<n; i++) if (demand[i] > 0) g.addEdge(n+i, sink, demand[i]);
+        return g.solve(src, sink);
+    }
+
+    // Cota de la parte de servicio del objetivo (sin el término de holgura, que solo
+    // desempata): a lo sumo las órdenes más chicas que quepan en la cota de cantidad
+    // llegan a tiempo, y sin violaciones.
+    static double serviceObjectiveBound(World W, List<Order> orders, int horizonDays, Precomp P){
+        long qtyBound = onTimeQtyBound(W, orders, horizonDays, P);
+        int[] qtys = orders.stream().mapToInt(o -> o.qty).sorted().toArray();
+        int k = 0; long acc = 0;
+        while (k < qtys.length && acc + qtys[k] <= qtyBound) acc += qtys[k++];
+        return LAMBDA_ONTIME*k - LAMBDA_LATE*(orders.size()-k);
+    }
+
+    // ===================== Caché de fitness ==========================
+    // Las élites y los hijos que salen como copia sin mutar repiten cromosoma. El fitness
+    // se guarda por un hash de 128 bits de las keys (al acertar se comparan las keys) para
+    // la generación actual y la anterior, así ningún individuo se decodifica dos veces.
+    static class FitnessCache {
+        static class Entry {
+            final long h2; final double[] keys; final double fit, service; final DecodeTrace trace;
+            Entry(long h2, double[] keys, double fit, double service, DecodeTrace trace){
+                this.h2=h2; this.keys=keys; this.fit=fit; this.service=service; this.trace=trace;
+            }
+        }
+        Map<Long,List<Entry>> cur = new HashMap<>(), prev = new HashMap<>();
+        int hits, misses;
+        long ordersReused, ordersDecoded;   // pedidos tomados del rastro de un padre / decodificados
+
+        static long mix(long x){
+            x = (x ^ (x >>> 30)) * 0xBF58476D1CE4E5B9L;
+            x = (x ^ (x >>> 27)) * 0x94D049BB133111EBL;
+            return x ^ (x >>> 31);
+        }
+        static long[] hash(double[] keys){
+            long h1 = 0x9E3779B97F4A7C15L, h2 = keys.length;
+            for (double k : keys){
+                long b = Double.doubleToLongBits(k);
+                h1 = mix(h1 ^ b);
+                h2 = mix(h2 + b*0xC2B2AE3D27D4EB4FL);
+            }
+            return new long[]{h1, h2};
+        }
+        static Entry find(Map<Long,List<Entry>> m, long[] h, double[] keys){
+            List<Entry> l = m.get(h[0]);
+            if (l==null) return null;
+            for (Entry e : l) if (e.h2==h[1] && Arrays.equals(e.keys, keys)) return e;
+            return null;
+        }
+        static void store(Map<Long,List<Entry>> m, long h1, Entry e){
+            m.computeIfAbsent(h1, k->new ArrayList<>(1)).add(e);
+        }
+
+        // null si no está (se cuenta como decode pendiente); al acertar, c recibe el rastro
+        Entry get(Chromosome c){
+            long[] h = hash(c.keys);
+            Entry e = find(cur, h, c.keys);
+            if (e==null){
+                e = find(prev, h, c.keys);
+                if (e!=null) store(cur, h[0], e);
+            }
+            if (e==null){ misses++; return null; }
+            hits++;
+            c.trace = e.trace;
+            return e;
+        }
+        void put(Chromosome c, double fit, double service){
+            long[] h = hash(c.keys);
+            if (find(cur, h, c.keys)==null) store(cur, h[0], new Entry(h[1], c.keys.clone(), fit, service, c.trace));
+        }
+        void nextGeneration(){ prev = cur; cur = new HashMap<>(); }
+    }
+
     // ===================== GA Core ==================================
     static double fitness(World W, List<Order> ordersSorted, Chromosome c, int horizonDays, Precomp precomputed){
-        return decodeSorted(W, ordersSorted, c, horizonDays, 12345L, precomputed).objective;
+        return scoreDecode(W, ordersSorted, c, horizonDays, precomputed).objective;
+    }
+
+    // decode de fitness que arranca del rastro del padre con el prefijo común más largo
+    static Solution scoreDecode(World W, List<Order> ordersSorted, Chromosome c, int horizonDays, Precomp precomputed){
+        DecodeTrace base = null;
+        int start = 0;
+        if (c.bases != null) {
+            for (DecodeTrace b : c.bases) {
+                if (b == null) continue;
+                int s = Math.min(b.firstDivergence(c.keys), ordersSorted.size());
+                if (s > start) { start = s; base = b; }
+            }
+        }
+        return decodeSorted(W, ordersSorted, c, horizonDays, 12345L, precomputed, false, base, start);
     }
 
     static Chromosome crossover(Chromosome a, Chromosome b, Random rnd){
@@ -912,7 +1457,8 @@ public class MoraPackGAMensualNoBlock {
     static class Scored {
         Chromosome c;
         double fit;
-        Scored(Chromosome c, double fit){ this.c=c; this.fit=fit; }
+        double service;   // parte de servicio de fit, la que se compara con la cota
+        Scored(Chromosome c, double fit, double service){ this.c=c; this.fit=fit; this.service=service; }
     }
 
     static Solution runGA(World W, List<Order> orders, int horizonDays, long seed){
@@ -925,39 +1471,110 @@ public class MoraPackGAMensualNoBlock {
         List<Order> ordersSorted = Collections.unmodifiableList(ordersSortedMutable);
 
         Precomp precomputed = precompute(W, horizonDays);
-        Chromosome best=null; double bestFit=-1e18; int stall=0;
-
-        for (int gen=1; gen<=MAX_GEN; gen++){
-            List<Scored> scored = new ArrayList<>(POP_SIZE);
-            for (int i=0;i<pop.size();i++){
-                Chromosome c = pop.get(i);
-                scored.add(new Scored(c, fitness(W, ordersSorted, c, horizonDays, precomputed)));
-            }
-
-            scored.sort((a,b)->Double.compare(b.fit, a.fit));
-            List<Chromosome> next = new ArrayList<>(POP_SIZE);
-            for (int i=0;i<ELITE_K;i++) next.add(scored.get(i).c.copy());
+        Chromosome best=null; double bestFit=-1e18, bestService=-1e18; int stall=0;
+        FitnessCache cache = new FitnessCache();
+
+        double target = Double.POSITIVE_INFINITY;
+        if (GAP_STOP >= 0){
+            double bound = serviceObjectiveBound(W, ordersSorted, horizonDays, precomputed);
+            target = bound - GAP_STOP*Math.abs(bound);
+            logInfo("GA", String.format("Cota de flujo máximo: objetivo sin holgura <= %.3f", bound));
+        }
 
-            while (next.size()<POP_SIZE){
-                Chromosome p1 = scored.get(rnd.nextInt(scored.size())).c;
-                Chromosome p2 = scored.get(rnd.nextInt(scored.size())).c;
-                Chromosome ch = crossover(p1,p2,rnd);
-                mutate(ch,rnd);
-                next.add(ch);
-            }
-            pop = next;
+        // cada hilo decodifica sobre su propio DecodeContext/StockTracker/capUsed y solo lee
+        // W y Precomp: la población se evalúa en paralelo y el resultado no depende del orden
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, EVAL_THREADS));
+        try {
+            for (int gen=1; gen<=MAX_GEN; gen++){
+                cache.nextGeneration();
+                double[] services = new double[pop.size()];
+                double[] fits = evaluatePopulation(pool, cache, W, ordersSorted, pop, horizonDays, precomputed, services);
+                List<Scored> scored = new ArrayList<>(POP_SIZE);
+                for (int i=0;i<pop.size();i++) scored.add(new Scored(pop.get(i), fits[i], services[i]));
+
+                scored.sort((a,b)->Double.compare(b.fit, a.fit));
+                List<Chromosome> next = new ArrayList<>(POP_SIZE);
+                for (int i=0;i<ELITE_K;i++) next.add(scored.get(i).c.copy());
+
+                while (next.size()<POP_SIZE){
+                    Chromosome p1 = scored.get(rnd.nextInt(scored.size())).c;
+                    Chromosome p2 = scored.get(rnd.nextInt(scored.size())).c;
+                    Chromosome ch = crossover(p1,p2,rnd);
+                    mutate(ch,rnd);
+                    ch.trace = null;
+                    ch.bases = new DecodeTrace[]{ p1.trace, p2.trace };
+                    next.add(ch);
+                }
+                pop = next;
 
-            Scored iterBest = scored.get(0);
-            double iterFit = iterBest.fit;
+                Scored iterBest = scored.get(0);
+                double iterFit = iterBest.fit;
 
-            if (iterFit > bestFit){ bestFit=iterFit; best=iterBest.c.copy(); stall=0; }
-            else stall++;
+                if (iterFit > bestFit){ bestFit=iterFit; bestService=iterBest.service; best=iterBest.c.copy(); stall=0; }
+                else stall++;
 
-            if (stall>=NO_IMPROV_LIMIT) break;
+                if (stall>=NO_IMPROV_LIMIT) break;
+                // la cota no incluye la holgura: se compara solo la parte de servicio
+                if (bestService >= target){
+                    logInfo("GA", "Brecha cerrada en la generación " + gen);
+                    break;
+                }
+            }
+        } finally {
+            pool.shutdownNow();
         }
+        logInfo("GA", String.format("Decodes=%d reutilizados de caché=%d pedidos decodificados=%d tomados del padre=%d",
+                cache.misses, cache.hits, cache.ordersDecoded, cache.ordersReused));
         return decodeSorted(W, ordersSorted, best, horizonDays, seed, precomputed);
     }
 
+    // solo se decodifican los que no están en la caché; los repetidos dentro de la
+    // generación se decodifican una vez y los demás toman ese resultado.
+    // Devuelve el fitness y deja en services la parte de servicio de cada uno.
+    static double[] evaluatePopulation(ExecutorService pool, FitnessCache cache, World W, List<Order> ordersSorted,
+                                       List<Chromosome> pop, int horizonDays, Precomp precomputed, double[] services){
+        double[] fits = new double[pop.size()];
+        List<Future<Solution>> futures = new ArrayList<>(pop.size());
+        int[] same = new int[pop.size()];
+        Map<Long,Integer> pending = new HashMap<>();
+        for (int i=0;i<pop.size();i++){
+            Chromosome c = pop.get(i);
+            same[i] = -1;
+            futures.add(null);
+            long h = FitnessCache.hash(c.keys)[0];
+            Integer j = pending.get(h);
+            if (j!=null && Arrays.equals(pop.get(j).keys, c.keys)){ same[i] = j; cache.hits++; continue; }
+            FitnessCache.Entry e = cache.get(c);
+            if (e!=null){ fits[i] = e.fit; services[i] = e.service; continue; }
+            pending.put(h, i);
+            futures.set(i, pool.submit(() -> scoreDecode(W, ordersSorted, c, horizonDays, precomputed)));
+        }
+        try {
+            for (int i=0;i<fits.length;i++){
+                if (futures.get(i)==null) continue;
+                Solution s = futures.get(i).get();
+                Chromosome c = pop.get(i);
+                fits[i] = s.objective;
+                services[i] = s.service;
+                c.trace = s.trace; c.bases = null;
+                cache.ordersReused += s.trace.reused;
+                cache.ordersDecoded += ordersSorted.size() - s.trace.reused;
+                cache.put(c, fits[i], services[i]);
+            }
+            for (int i=0;i<fits.length;i++){
+                if (same[i]<0) continue;
+                fits[i] = fits[same[i]]; services[i] = services[same[i]];
+                pop.get(i).trace = pop.get(same[i]).trace;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Evaluación interrumpida", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Falló el decode de un cromosoma", e.getCause());
+        }
+        return fits;
+    }
+
     // ===================== Carga de órdenes ==========================
 
     // NEW: dd-hh-mm-dest-###-IdClien   (UTC)
@@ -1,7 +1,8 @@
 // MoraPackGAOptimized.java (optimized, same logic/outputs)
 // GA con decodificador (órdenes sin origen): elige hub (entre EXPORT_HUBS) por subruta.
 // Reglas: conexión mínima, due 2/3 días, ventana de recojo 2h, escalas, split entre subrutas.
-// Control de capacidad de vuelo y de almacén por intervalos (difference array por slots).
+// Control de capacidad de vuelo y de almacén por intervalos (árbol de segmentos por slots:
+// suma y máximo en rango).
 
 import java.io.*;
 import java.nio.file.*;
@@ -26,6 +27,7 @@ public class MoraPackGAOptimized {
     static final int ELITE_K   = 4;
     static final int TOURN_K   = 3;
     static final int NO_IMPROV_LIMIT = 40;
+    static final double GAP_STOP = 0.0;   // corta al llegar a la cota de flujo (negativo = sin cota)
 
     // Objetivo
     static final double LAMBDA_ONTIME = 1.0;
@@ -40,7 +42,7 @@ public class MoraPackGAOptimized {
         "UBBB"   // Bakú
     );
 
-    // Stock/Almacén: granularidad de slots para difference arrays
+    // Stock/Almacén: granularidad de slots del árbol de segmentos
     static final int SLOT_MIN = 60; // 60 minutos
 
     // Recorte opcional de branching (no cambia téc. la lógica; poner 12~24 para más speed)
@@ -121,6 +123,7 @@ public class MoraPackGAOptimized {
         Map<String,Integer> capUsed = new HashMap<>(); // (flight,day) -> used (se mantiene para compat)
         int servedOnTime, servedLate, capViol, avgSlack;
         double objective;
+        double service;    // objetivo sin el término de holgura (lo que acota serviceObjectiveBound)
     }
 
     static class World {
@@ -279,13 +282,48 @@ public class MoraPackGAOptimized {
         return P;
     }
 
-    // ===================== Stock por intervalos (difference arrays) ==
+    // ===================== Stock por intervalos (árbol de segmentos) =
     static class StockTracker {
+        // árbol de segmentos por aeropuerto (iterativo, hojas en [h, 2h)): suma en rango
+        // con pendientes en los nodos internos y máximo en rango, ambos O(log slots)
         static class Store {
-            final int[] delta;   // length = numSlots+1
-            final int[] pref;    // length = numSlots+1
-            boolean dirty = true;
-            Store(int n){ delta=new int[n+1]; pref=new int[n+1]; }
+            final int h, height;
+            final int[] max;
+            final int[] pending;
+            Store(int n){
+                int hh=1, ht=0; while (hh<n){ hh<<=1; ht++; }
+                h=hh; height=ht; max=new int[2*h]; pending=new int[h];
+            }
+            private void apply(int p, int v){ max[p]+=v; if (p<h) pending[p]+=v; }
+            private void rebuild(int p){
+                for (p>>=1; p>0; p>>=1) max[p] = Math.max(max[2*p], max[2*p+1]) + pending[p];
+            }
+            private void push(int p){
+                for (int s=height; s>0; s--){
+                    int i = p>>s;
+                    if (pending[i]!=0){ apply(2*i, pending[i]); apply(2*i+1, pending[i]); pending[i]=0; }
+                }
+            }
+            // suma v en [from, to)
+            void add(int from, int to, int v){
+                int l=from+h, r=to+h, l0=l, r0=r-1;
+                for (; l<r; l>>=1, r>>=1){
+                    if ((l&1)==1) apply(l++, v);
+                    if ((r&1)==1) apply(--r, v);
+                }
+                rebuild(l0); rebuild(r0);
+            }
+            // máximo en [from, to)
+            int max(int from, int to){
+                int l=from+h, r=to+h;
+                push(l); push(r-1);
+                int res=Integer.MIN_VALUE;
+                for (; l<r; l>>=1, r>>=1){
+                    if ((l&1)==1) res=Math.max(res, max[l++]);
+                    if ((r&1)==1) res=Math.max(res, max[--r]);
+                }
+                return res;
+            }
         }
         final int numSlots;
         final World W;
@@ -296,34 +334,29 @@ public class MoraPackGAOptimized {
             this.numSlots = (horizonDays*1440)/SLOT_MIN + 5;
         }
         Store get(String ap){
-            return stores.computeIfAbsent(ap, k->new Store(numSlots));
+            return stores.computeIfAbsent(ap, k->new Store(numSlots+1));
         }
         int capacityOf(Airport a){
             if (a==null) return Integer.MAX_VALUE;
             return a.isExporter ? Integer.MAX_VALUE : a.storageCap;
         }
+        // ocupación máxima en [slotStart, slotEnd)
+        int peak(String ap, int slotStart, int slotEnd){
+            Store st = stores.get(ap);
+            if (st==null) return 0;
+            return st.max(slotStart, slotEnd);
+        }
         boolean canFit(String ap, int slotStart, int slotEnd, int qty){
             if (slotStart>=slotEnd || qty<=0) return true;
             Airport a=W.airports.get(ap);
             int cap = capacityOf(a);
             if (cap==Integer.MAX_VALUE) return true;
-            Store st = get(ap);
-            if (st.dirty){
-                int run=0;
-                for (int i=0;i<st.pref.length;i++){ run += st.delta[i]; st.pref[i]=run; }
-                st.dirty=false;
-            }
-            // denso pero muy corto (≈384 slots/4 días)
-            for (int t=slotStart; t<slotEnd; t++){
-                if (st.pref[t] + qty > cap) return false;
-            }
-            return true;
+            return peak(ap, slotStart, slotEnd) + qty <= cap;
         }
         void addInterval(String ap, int slotStart, int slotEnd, int qty){
             if (slotStart>=slotEnd || qty<=0) return;
             Store st = get(ap);
-            st.delta[slotStart]+=qty; st.delta[slotEnd]-=qty;
-            st.dirty = true;
+            st.add(slotStart, slotEnd, qty);
         }
     }
 
@@ -614,10 +647,229 @@ public class MoraPackGAOptimized {
 
         sol.servedOnTime = onTime; sol.servedLate = late; sol.capViol = viol;
         sol.avgSlack = (slackCnt==0)?0:(int)(slackSum/slackCnt);
-        sol.objective = LAMBDA_ONTIME*onTime - LAMBDA_LATE*late - LAMBDA_CAPVIO*viol + LAMBDA_SLACK*sol.avgSlack;
+        sol.service = LAMBDA_ONTIME*onTime - LAMBDA_LATE*late - LAMBDA_CAPVIO*viol;
+        sol.objective = sol.service + LAMBDA_SLACK*sol.avgSlack;
         return sol;
     }
 
+    // ===================== Cota por flujo máximo =====================
+    // Red expandida en el tiempo: nodo = (aeropuerto, instante listo para salir), arcos
+    // vuelo-día con su capacidad, esperas entre nodos consecutivos (con tope de almacén
+    // fuera de los hubs cuando cruzan un slot), fuentes en los hubs a la liberación y
+    // sumideros al vencimiento más holgado de cada orden. Lo que llega a un destino pasa
+    // a una cadena "entregado" sin tope. El flujo máximo acota la cantidad a tiempo.
+    static class MaxFlow {
+        static final long INF = Long.MAX_VALUE / 4;
+        final int n;
+        final int[] head;
+        int[] to = new int[16], next = new int[16];
+        long[] cap = new long[16];
+        int m = 0;
+        int[] level, it, queue, stack;
+
+        MaxFlow(int n){ this.n=n; head=new int[n]; Arrays.fill(head,-1); }
+
+        void addEdge(int u, int v, long c){
+            if (m+2 > to.length){
+                to=Arrays.copyOf(to,to.length*2); next=Arrays.copyOf(next,next.length*2); cap=Arrays.copyOf(cap,cap.length*2);
+            }
+            to[m]=v; cap[m]=c; next[m]=head[u]; head[u]=m++;
+            to[m]=u; cap[m]=0; next[m]=head[v]; head[v]=m++;
+        }
+
+        long solve(int s, int t){
+            level=new int[n]; it=new int[n]; queue=new int[n]; stack=new int[n];
+            long flow=0;
+            while (bfs(s,t)){
+                System.arraycopy(head,0,it,0,n);
+                flow += blocking(s,t);
+            }
+            return flow;
+        }
+
+        boolean bfs(int s, int t){
+            Arrays.fill(level,-1);
+            int qh=0, qt=0;
+            level[s]=0; queue[qt++]=s;
+            while (qh<qt){
+                int u=queue[qh++];
+                for (int e=head[u]; e!=-1; e=next[e])
+                    if (cap[e]>0 && level[to[e]]<0){ level[to[e]]=level[u]+1; queue[qt++]=to[e]; }
+            }
+            return level[t]>=0;
+        }
+
+        // DFS iterativa (las cadenas de espera son largas para la pila de Java)
+        long blocking(int s, int t){
+            long flow=0;
+            int depth=0, u=s;
+            while (true){
+                if (u==t){
+                    long f=INF;
+                    for (int i=0;i<depth;i++) f=Math.min(f,cap[stack[i]]);
+                    int cut=depth;
+                    for (int i=depth-1;i>=0;i--){
+                        int e=stack[i];
+                        cap[e]-=f; cap[e^1]+=f;
+                        if (cap[e]==0) cut=i;
+                    }
+                    flow+=f;
+                    depth=cut;
+                    u=(depth==0)?s:to[stack[depth-1]];
+                    continue;
+                }
+                int e=it[u];
+                while (e!=-1 && (cap[e]==0 || level[to[e]]!=level[u]+1)) e=next[e];
+                it[u]=e;
+                if (e!=-1){ stack[depth++]=e; u=to[e]; continue; }
+                if (u==s) return flow;
+                level[u]=-1;
+                depth--;
+                u=to[stack[depth]^1];
+                it[u]=next[it[u]];
+            }
+        }
+    }
+
+    static int maxDueForOrder(World W, Order o){
+        int due = Integer.MIN_VALUE;
+        for (String h : hubs(W)) due = Math.max(due, computeDueForHub(W, h, o.dest, o.releaseMinUTC));
+        return due;
+    }
+
+    // aeropuerto en los 32 bits altos; el tiempo va corrido porque puede ser negativo
+    static long nodeKey(int ap, int t){ return ((long)ap << 32) + (t + (1 << 20)); }
+    static int keyTime(long key){ return (int)(key & 0xffffffffL) - (1 << 20); }
+
+    static long onTimeQtyBound(World W, List<Order> orders, int horizonDays, Precomp P){
+        Map<String,Integer> apIdx = new HashMap<>();
+        for (String code : W.airports.keySet()) apIdx.put(code, apIdx.size());
+
+        // eventos (aeropuerto, instante) -> nodos, ordenados por aeropuerto y tiempo
+        List<Long> ev = new ArrayList<>();
+        for (int fi=0; fi<W.flights.size(); fi++){
+            Flight f = W.flights.get(fi);
+            if (!apIdx.containsKey(f.orig) || !apIdx.containsKey(f.dest)) continue;
+            for (int d=0; d<horizonDays; d++){
+                ev.add(nodeKey(apIdx.get(f.orig), P.depUTC[fi][d]));
+                ev.add(nodeKey(apIdx.get(f.dest), P.arrUTC[fi][d] + MIN_TURN_MIN));
+            }
+        }
+        for (Order o : orders){
+            if (!apIdx.containsKey(o.dest)) continue;
+            ev.add(nodeKey(apIdx.get(o.dest), maxDueForOrder(W, o) + MIN_TURN_MIN));
+            for (String h : hubs(W)) ev.add(nodeKey(apIdx.get(h), o.releaseMinUTC + MIN_TURN_MIN));
+        }
+        long[] keys = ev.stream().mapToLong(Long::longValue).sorted().distinct().toArray();
+        int n = keys.length;
+
+        Set<Integer> destAps = new HashSet<>();
+        for (Order o : orders) if (apIdx.containsKey(o.dest)) destAps.add(apIdx.get(o.dest));
+        String[] codeOf = new String[apIdx.size()];
+        for (Map.Entry<String,Integer> e : apIdx.entrySet()) codeOf[e.getValue()] = e.getKey();
+
+        int numSlots = (horizonDays*1440)/SLOT_MIN + 5;   // como StockTracker
+        int src = 2*n + orders.size(), sink = src + 1;
+        MaxFlow g = new MaxFlow(sink + 1);
+        for (int fi=0; fi<W.flights.size(); fi++){
+            Flight f = W.flights.get(fi);
+            if (!apIdx.containsKey(f.orig) || !apIdx.containsKey(f.dest)) continue;
+            for (int d=0; d<horizonDays; d++){
+                int u = Arrays.binarySearch(keys, nodeKey(apIdx.get(f.orig), P.depUTC[fi][d]));
+                int v = Arrays.binarySearch(keys, nodeKey(apIdx.get(f.dest), P.arrUTC[fi][d] + MIN_TURN_MIN));
+                g.addEdge(u, v, f.capacity);
+            }
+        }
+        for (int i=0; i+1<n; i++){
+            int ap = (int)(keys[i] >>> 32);
+            if (ap != (int)(keys[i+1] >>> 32)) continue;
+            int t1 = keyTime(keys[i]), t2 = keyTime(keys[i+1]);
+            Airport a = W.airports.get(codeOf[ap]);
+            boolean stored = a != null && !a.isExporter && slotOf(t1, numSlots) != slotOf(t2, numSlots);
+            g.addEdge(i, i+1, stored ? a.storageCap : MaxFlow.INF);
+            if (destAps.contains(ap)) g.addEdge(n+i, n+i+1, MaxFlow.INF);
+        }
+        for (int i=0; i<n; i++) if (destAps.contains((int)(keys[i] >>> 32))) g.addEdge(i, n+i, MaxFlow.INF);
+
+        long[] demand = new long[n];
+        for (int j=0; j<orders.size(); j++){
+            Order o = orders.get(j);
+            if (!apIdx.containsKey(o.dest)) continue;
+            demand[Arrays.binarySearch(keys, nodeKey(apIdx.get(o.dest), maxDueForOrder(W, o) + MIN_TURN_MIN))] += o.qty;
+            g.addEdge(src, 2*n + j, o.qty);
+            for (String h : hubs(W))
+                g.addEdge(2*n + j, Arrays.binarySearch(keys, nodeKey(apIdx.get(h), o.releaseMinUTC + MIN_TURN_MIN)), MaxFlow.INF);
+        }
+        for (int i=0; i<n; i++) if (demand[i] > 0) g.addEdge(n+i, sink, demand[i]);
+        return g.solve(src, sink);
+    }
+
+    // Cota de la parte de servicio del objetivo (sin el término de holgura, que solo
+    // desempata): a lo sumo las órdenes más chicas que quepan en la cota de cantidad
+    // llegan a tiempo, y sin violaciones.
+    static double serviceObjectiveBound(World W, List<Order> orders, int horizonDays, Precomp P){
+        long qtyBound = onTimeQtyBound(W, orders, horizonDays, P);
+        int[] qtys = orders.stream().mapToInt(o -> o.qty).sorted().toArray();
+        int k = 0; long acc = 0;
+        while (k < qtys.length && acc + qtys[k] <= qtyBound) acc += qtys[k++];
+        return LAMBDA_ONTIME*k - LAMBDA_LATE*(orders.size()-k);
+    }
+
+    // ===================== Caché de fitness ==========================
+    // Las élites y los hijos que salen como copia sin mutar repiten cromosoma. El fitness
+    // se guarda por un hash de 128 bits de las keys (al acertar se comparan las keys) para
+    // la generación actual y la anterior, así ningún individuo se decodifica dos veces.
+    static class FitnessCache {
+        static class Entry {
+            final long h2; final double[] keys; final double fit;
+            Entry(long h2, double[] keys, double fit){ this.h2=h2; this.keys=keys; this.fit=fit; }
+        }
+        Map<Long,List<Entry>> cur = new HashMap<>(), prev = new HashMap<>();
+        int hits, misses;
+
+        static long mix(long x){
+            x = (x ^ (x >>> 30)) * 0xBF58476D1CE4E5B9L;
+            x = (x ^ (x >>> 27)) * 0x94D049BB133111EBL;
+            return x ^ (x >>> 31);
+        }
+        static long[] hash(double[] keys){
+            long h1 = 0x9E3779B97F4A7C15L, h2 = keys.length;
+            for (double k : keys){
+                long b = Double.doubleToLongBits(k);
+                h1 = mix(h1 ^ b);
+                h2 = mix(h2 + b*0xC2B2AE3D27D4EB4FL);
+            }
+            return new long[]{h1, h2};
+        }
+        static Entry find(Map<Long,List<Entry>> m, long[] h, double[] keys){
+            List<Entry> l = m.get(h[0]);
+            if (l==null) return null;
+            for (Entry e : l) if (e.h2==h[1] && Arrays.equals(e.keys, keys)) return e;
+            return null;
+        }
+        static void store(Map<Long,List<Entry>> m, long h1, Entry e){
+            m.computeIfAbsent(h1, k->new ArrayList<>(1)).add(e);
+        }
+
+        // null si no está (se cuenta como decode pendiente)
+        Double get(Chromosome c){
+            long[] h = hash(c.keys);
+            Entry e = find(cur, h, c.keys);
+            if (e==null){
+                e = find(prev, h, c.keys);
+                if (e!=null) store(cur, h[0], e);
+            }
+            if (e==null){ misses++; return null; }
+            hits++;
+            return e.fit;
+        }
+        void put(Chromosome c, double fit){
+            long[] h = hash(c.keys);
+            if (find(cur, h, c.keys)==null) store(cur, h[0], new Entry(h[1], c.keys.clone(), fit));
+        }
+        void nextGeneration(){ prev = cur; cur = new HashMap<>(); }
+    }
+
     // ===================== GA Core ==================================
     static double fitness(World W, List<Order> orders, Chromosome c, int horizonDays){
         // Usa semilla fija para que la evaluación sea determinista
@@ -651,14 +903,25 @@ public class MoraPackGAOptimized {
         List<Chromosome> pop = new ArrayList<>(POP_SIZE);
         for (int i=0;i<POP_SIZE;i++) pop.add(randomChromosome(W.flights.size(), rnd));
 
-        Chromosome best=null; double bestFit=-1e18; int stall=0;
+        Chromosome best=null; double bestFit=-1e18, bestService=-1e18; int stall=0;
+        FitnessCache cache = new FitnessCache();
+
+        double target = Double.POSITIVE_INFINITY;
+        if (GAP_STOP >= 0){
+            double bound = serviceObjectiveBound(W, orders, horizonDays, precompute(W, horizonDays));
+            target = bound - GAP_STOP*Math.abs(bound);
+            System.out.println(String.format("[GA] Cota de flujo máximo: objetivo sin holgura <= %.3f", bound));
+        }
 
         for (int gen=1; gen<=MAX_GEN; gen++){
-            // 1) evaluar UNA vez por individuo
+            // 1) evaluar UNA vez por individuo (y no volver a decodificar repetidos)
+            cache.nextGeneration();
             List<Scored> scored = new ArrayList<>(POP_SIZE);
             for (int i=0;i<pop.size();i++){
                 Chromosome c = pop.get(i);
-                scored.add(new Scored(c, fitness(W, orders, c, horizonDays)));
+                Double f = cache.get(c);
+                if (f==null){ f = fitness(W, orders, c, horizonDays); cache.put(c, f); }
+                scored.add(new Scored(c, f));
             }
 
             // 2) elitismo sin recalcular
@@ -680,10 +943,20 @@ public class MoraPackGAOptimized {
             Scored iterBest = scored.get(0);
             double iterFit = iterBest.fit;
 
-            if (iterFit > bestFit){ bestFit=iterFit; best=iterBest.c.copy(); stall=0; }
+            if (iterFit > bestFit){
+                bestFit=iterFit; best=iterBest.c.copy(); stall=0;
+                // el fitness guardado incluye la holgura: el nuevo mejor se decodifica otra vez
+                // (misma semilla que fitness) para leer su parte de servicio
+                if (GAP_STOP >= 0) bestService = decode(W, orders, best, horizonDays, 12345L).service;
+            }
             else stall++;
 
             if (stall>=NO_IMPROV_LIMIT) break;
+            // la cota no incluye la holgura: se compara solo la parte de servicio
+            if (bestService >= target){
+                System.out.println("[GA] Brecha cerrada en la generación " + gen);
+                break;
+            }
         }
         return decode(W, orders, best, horizonDays, seed);
     }
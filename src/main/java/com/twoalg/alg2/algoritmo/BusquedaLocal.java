@@ -0,0 +1,242 @@
+package alg2.algoritmo;
+
+import alg2.model.*;
+import alg2.funcaux.Claves;
+
+import java.util.*;
+
+// Búsqueda local sobre una solución terminada. Reconstruye el registro de capacidad
+// con sus rutas y prueba movimientos sobre los subpedidos tarde o sin ruta:
+//  - reasignar: liberar su ruta y buscar otra (desde cualquier hub) que llegue a tiempo;
+//  - intercambiar: desplazar a un subpedido a tiempo que ocupa un vuelo-día lleno que
+//    el tarde necesita, y reubicar al desplazado en un vuelo posterior de su mismo hub;
+//  - cambiar de hub: igual, pero el desplazado sale por otro hub.
+// Un movimiento solo toca los tramos de las rutas involucradas: se reserva/libera sobre
+// el registro, el cambio de objetivo sale de las cantidades movidas y, si no mejora, se
+// revierte al punto de guardado. Nunca acepta tramos ni estadías en almacén por
+// encima de la capacidad.
+public class BusquedaLocal {
+
+  public static final int MAX_DESPLAZADOS = 6; // candidatos a desplazar por vuelo-día lleno
+
+  private final MotorACO motor;
+  private final Instancia inst;
+  private final int capTotalDiaria;
+  private final Map<Integer,Pedido> pedidoPorId = new HashMap<>();
+
+  private RegistroCapacidad registro;
+  // vuelo-día -> subpedidos a tiempo que lo usan (solo cambia al aceptar un movimiento)
+  private Map<String,TreeSet<Integer>> usuarios;
+  private Solucion sol;
+
+  // desplazados del movimiento en curso: se aplican a la solución solo si se acepta
+  private static final class Reubicacion {
+    final Pedido pedido; final Ruta anterior, nueva;
+    Reubicacion(Pedido pedido, Ruta anterior, Ruta nueva){ this.pedido=pedido; this.anterior=anterior; this.nueva=nueva; }
+  }
+  private final List<Reubicacion> pendientes = new ArrayList<>();
+  private final Set<Integer> movidos = new HashSet<>();
+
+  public BusquedaLocal(MotorACO motor, Instancia inst){
+    this.motor = motor;
+    this.inst = inst;
+    this.capTotalDiaria = inst.vuelos.stream().mapToInt(v -> v.capacidadMaxima).sum();
+    for (Pedido p : inst.pedidos) pedidoPorId.put(p.id, p);
+  }
+
+  // devuelve una copia mejorada; la base no se modifica
+  public Solucion mejorar(Solucion base, long limiteMs){
+    long fin = System.currentTimeMillis() + limiteMs;
+    sol = new Solucion();
+    sol.rutas = new HashMap<>(base.rutas);
+    sol.subpedidosATiempo = base.subpedidosATiempo;
+    sol.subpedidosTarde = base.subpedidosTarde;
+    sol.violacionesCapacidad = base.violacionesCapacidad;
+    sol.valorObjetivo = base.valorObjetivo;
+
+    registro = new RegistroCapacidad(inst, motor.cfg.controlarAlmacen);
+    usuarios = new HashMap<>();
+    for (Map.Entry<Integer,Ruta> e : sol.rutas.entrySet()) {
+      Pedido p = pedidoPorId.get(e.getKey());
+      reservar(p, e.getValue());
+      indexar(p, e.getValue(), true);
+    }
+    registro.confirmar(0);
+
+    boolean mejoro = true;
+    while (mejoro && System.currentTimeMillis() < fin) {
+      mejoro = false;
+      for (List<Pedido> grupo : MotorACO.agruparPorOriginal(inst).values()) {
+        if (System.currentTimeMillis() >= fin) break;
+        if (!sol.rutas.containsKey(grupo.get(0).id) && insertarGrupo(grupo)) mejoro = true;
+      }
+      List<Pedido> tarde = new ArrayList<>();
+      for (Map.Entry<Integer,Ruta> e : sol.rutas.entrySet()) if (!e.getValue().aTiempo) tarde.add(pedidoPorId.get(e.getKey()));
+      tarde.sort(Comparator.comparingInt((Pedido p) -> -p.cantidad).thenComparingInt(p -> p.id));
+      for (Pedido p : tarde) {
+        if (System.currentTimeMillis() >= fin) break;
+        if (reubicarTarde(p)) mejoro = true;
+      }
+    }
+    return sol;
+  }
+
+  // grupo sin ruta: todo o nada, como en la construcción; gana lo que llegue a tiempo
+  private boolean insertarGrupo(List<Pedido> grupo){
+    int marca = registro.puntoGuardado();
+    pendientes.clear(); movidos.clear();
+    List<Ruta> rutas = new ArrayList<>();
+    double delta = 0;
+    for (Pedido p : grupo) {
+      Ruta r = rutaPara(p, true);
+      if (r == null) { registro.revertirA(marca); return false; }
+      rutas.add(r);
+      if (r.aTiempo) delta += 4.0 * p.cantidad;
+    }
+    if (delta <= 0) { registro.revertirA(marca); return false; }
+    registro.confirmar(marca);
+    for (int i = 0; i < grupo.size(); i++) aplicar(grupo.get(i), null, rutas.get(i));
+    aplicarPendientes();
+    sol.valorObjetivo += delta;
+    return true;
+  }
+
+  // subpedido tarde: reasignar y, si no alcanza, intercambiar / cambiar de hub
+  private boolean reubicarTarde(Pedido p){
+    Ruta actual = sol.rutas.get(p.id);
+    int marca = registro.puntoGuardado();
+    pendientes.clear(); movidos.clear();
+    liberar(p, actual);
+    Ruta r = rutaPara(p, true);
+    if (r == null || !r.aTiempo) { registro.revertirA(marca); return false; }
+    registro.confirmar(marca);
+    aplicar(p, actual, r);
+    aplicarPendientes();
+    sol.valorObjetivo += 4.0 * p.cantidad;
+    return true;
+  }
+
+  // Reserva y devuelve una ruta para p: la mejor a tiempo (reasignar); si no la hay y
+  // se permite, desplaza a un subpedido a tiempo que bloquea un vuelo-día lleno,
+  // primero a un vuelo posterior de su hub (intercambio) y luego por otro hub. Si nada
+  // de eso llega a tiempo, la mejor ruta tarde que quepa. Deja los desplazados en
+  // pendientes; los cambios sobre el registro los revierte quien llama si no acepta.
+  private Ruta rutaPara(Pedido p, boolean desplazar){
+    Ruta r = mejorRuta(p, MotorACO.origenesPosibles(p));
+    boolean cabeR = r != null && cabe(p, r);
+    if (cabeR && r.aTiempo) { reservar(p, r); return r; }
+
+    if (desplazar) {
+      for (boolean mismoHub : new boolean[]{true, false}) {
+        for (int otroId : bloqueadores(p)) {
+          if (movidos.contains(otroId)) continue;
+          Pedido o = pedidoPorId.get(otroId);
+          Ruta rutaO = sol.rutas.get(otroId);
+          List<String> hubsO = hubsParaDesplazado(o, rutaO, mismoHub);
+          if (hubsO.isEmpty()) continue;
+
+          int marca = registro.puntoGuardado();
+          liberar(o, rutaO);
+          Ruta rp = mejorRuta(p, MotorACO.origenesPosibles(p));
+          if (rp != null && rp.aTiempo && cabe(p, rp)) {
+            reservar(p, rp);
+            Ruta ro = mejorRuta(o, hubsO);
+            if (ro != null && ro.aTiempo && cabe(o, ro)) {
+              reservar(o, ro);
+              pendientes.add(new Reubicacion(o, rutaO, ro));
+              movidos.add(otroId);
+              return rp;
+            }
+          }
+          registro.revertirA(marca);
+        }
+      }
+    }
+    if (!cabeR) return null;
+    reservar(p, r);
+    return r;
+  }
+
+  private void aplicarPendientes(){
+    for (Reubicacion m : pendientes) aplicar(m.pedido, m.anterior, m.nueva);
+    pendientes.clear(); movidos.clear();
+  }
+
+  private List<String> hubsParaDesplazado(Pedido o, Ruta ruta, boolean mismoHub){
+    if (mismoHub) return (ruta.origen == null) ? List.of() : List.of(ruta.origen);
+    List<String> otros = new ArrayList<>();
+    for (String h : MotorACO.origenesPosibles(o)) if (!h.equals(ruta.origen)) otros.add(h);
+    return otros;
+  }
+
+  // subpedidos a tiempo en los vuelos-día llenos de la ruta que p tomaría sin competencia
+  private List<Integer> bloqueadores(Pedido p){
+    Set<Integer> out = new LinkedHashSet<>();
+    for (String hub : MotorACO.origenesPosibles(p)) {
+      Ruta ideal = motor.construirRutaParaPedido(p, hub, inst, Map.of(), true);
+      if (ideal == null || ideal.llegadaFinalUTC > p.vencimientoUTC) continue;
+      for (SubRuta s : ideal.subrutas) {
+        String clave = Claves.claveCapacidadVueloDia(s.vuelo, s.salidaAjustadaUTC);
+        int libre = s.vuelo.capacidadMaxima - registro.usadoVueloDia(clave);
+        if (libre >= p.cantidad) continue;
+        int n = 0;
+        for (int id : usuarios.getOrDefault(clave, new TreeSet<>())) {
+          // solo sirve si al sacarlo queda lugar para p
+          if (id == p.id || libre + pedidoPorId.get(id).cantidad < p.cantidad) continue;
+          if (out.add(id) && ++n >= MAX_DESPLAZADOS) break;
+        }
+      }
+    }
+    return new ArrayList<>(out);
+  }
+
+  private Ruta mejorRuta(Pedido p, List<String> hubs){
+    Ruta mejor = null;
+    for (String hub : hubs) {
+      Ruta r = motor.construirRutaParaPedido(p, hub, inst, registro, true);
+      if (r != null && (mejor == null || r.llegadaFinalUTC < mejor.llegadaFinalUTC)) mejor = r;
+    }
+    if (mejor != null) mejor.aTiempo = (mejor.llegadaFinalUTC <= p.vencimientoUTC);
+    return mejor;
+  }
+
+  private boolean cabe(Pedido p, Ruta r){
+    for (SubRuta s : r.subrutas) {
+      if (registro.usadoDia(RegistroCapacidad.indiceDia(s)) + p.cantidad > capTotalDiaria) return false;
+      String clave = Claves.claveCapacidadVueloDia(s.vuelo, s.salidaAjustadaUTC);
+      if (registro.usadoVueloDia(clave) + p.cantidad > s.vuelo.capacidadMaxima) return false;
+    }
+    return registro.cabeRutaEnAlmacen(r, p.destino, p.cantidad);
+  }
+
+  private void reservar(Pedido p, Ruta r){ mover(p, r, p.cantidad); }
+  private void liberar(Pedido p, Ruta r){ if (r != null) mover(p, r, -p.cantidad); }
+
+  private void mover(Pedido p, Ruta r, int cantidad){
+    for (SubRuta s : r.subrutas) {
+      registro.reservarDia(RegistroCapacidad.indiceDia(s), cantidad);
+      registro.reservarVueloDia(Claves.claveCapacidadVueloDia(s.vuelo, s.salidaAjustadaUTC), cantidad);
+    }
+    registro.reservarRutaEnAlmacen(r, p.destino, cantidad);
+  }
+
+  // movimiento aceptado: rutas, contadores e índice de usuarios
+  private void aplicar(Pedido p, Ruta anterior, Ruta nueva){
+    if (anterior != null) {
+      indexar(p, anterior, false);
+      if (anterior.aTiempo) sol.subpedidosATiempo--; else sol.subpedidosTarde--;
+    } else sol.subpedidosTarde--; // sin ruta contaba como tarde
+    sol.rutas.put(p.id, nueva);
+    indexar(p, nueva, true);
+    if (nueva.aTiempo) sol.subpedidosATiempo++; else sol.subpedidosTarde++;
+  }
+
+  private void indexar(Pedido p, Ruta r, boolean agregar){
+    if (!r.aTiempo) return;
+    for (SubRuta s : r.subrutas) {
+      String clave = Claves.claveCapacidadVueloDia(s.vuelo, s.salidaAjustadaUTC);
+      if (agregar) usuarios.computeIfAbsent(clave, k -> new TreeSet<>()).add(p.id);
+      else { TreeSet<Integer> u = usuarios.get(clave); if (u != null) u.remove(p.id); }
+    }
+  }
+}
@@ -0,0 +1,139 @@
+package alg2.algoritmo;
+
+import alg2.model.*;
+import alg2.funcaux.Claves;
+
+import java.util.*;
+
+// Re-enrutamiento ante cancelaciones sobre un plan ya armado, sin volver a correr el ACO.
+// Al crearse reconstruye el registro de capacidad con las rutas del plan y un índice
+// inverso vuelo-día -> subpedidos que lo usan. Cancelar un vuelo-día bloquea su
+// capacidad, toma del índice solo las rutas afectadas, las extiende a los pedidos
+// originales completos, libera sus tramos y estadías y vuelve a insertar cada grupo
+// (los de vencimiento más próximo primero) con MotorACO.insertarGrupo contra lo que
+// queda libre: todo o nada, como en la planificación. La solución se modifica en el lugar.
+// Las rutas nuevas salen del hub como en la planificación: el plan todavía no se ejecutó.
+public class GestorDisrupciones {
+
+  public static class Resultado {
+    public final List<Integer> afectados = new ArrayList<>();  // ids de subpedido
+    public int reubicadosATiempo, reubicadosTarde, sinRuta;
+  }
+
+  private final MotorACO motor;
+  private final Instancia inst;
+  private final Solucion sol;
+  private final int capTotalDiaria;
+  private final Map<Integer,Pedido> pedidoPorId = new HashMap<>();
+  private final Map<Integer,List<Pedido>> porOriginal;
+  private final RegistroCapacidad registro;
+  private final Map<String,Set<Integer>> rutasPorVueloDia = new HashMap<>();
+  private final Set<String> cancelados = new HashSet<>();
+
+  public GestorDisrupciones(MotorACO motor, Instancia inst, Solucion sol){
+    this.motor = motor;
+    this.inst = inst;
+    this.sol = sol;
+    this.capTotalDiaria = inst.vuelos.stream().mapToInt(v -> v.capacidadMaxima).sum();
+    for (Pedido p : inst.pedidos) pedidoPorId.put(p.id, p);
+    porOriginal = MotorACO.agruparPorOriginal(inst);
+    registro = new RegistroCapacidad(inst, motor.cfg.controlarAlmacen);
+    for (Map.Entry<Integer,Ruta> e : sol.rutas.entrySet()) {
+      Pedido p = pedidoPorId.get(e.getKey());
+      mover(p, e.getValue(), p.cantidad);
+      indexar(p, e.getValue(), true);
+    }
+    registro.confirmar(0);
+  }
+
+  public GestorDisrupciones(Instancia inst, Solucion sol){ this(ConstruccionRuta.motorPorDefecto(), inst, sol); }
+
+  // dia: índice de día del vuelo (ver RegistroCapacidad.indiceDia)
+  public Resultado cancelarVueloDia(Vuelo v, int dia){
+    String clave = Claves.claveVuelo(v) + "|" + dia;
+    Resultado res = new Resultado();
+    if (!cancelados.add(clave)) return res;
+    // el vuelo-día queda lleno para el constructor
+    registro.reservarVueloDia(clave, v.capacidadMaxima);
+
+    Set<Integer> usuarios = rutasPorVueloDia.remove(clave);
+    if (usuarios != null) res.afectados.addAll(usuarios);
+    reubicar(res);
+    return res;
+  }
+
+  // cancela el vuelo todos los días: las rutas nuevas tampoco lo usan (MotorACO.candidatos)
+  public Resultado cancelarVuelo(Vuelo v){
+    v.estado = EstadoVuelo.CANCELADO;
+    String prefijo = Claves.claveVuelo(v) + "|";
+    Set<Integer> usuarios = new LinkedHashSet<>();
+    for (Iterator<Map.Entry<String,Set<Integer>>> it = rutasPorVueloDia.entrySet().iterator(); it.hasNext(); ) {
+      Map.Entry<String,Set<Integer>> e = it.next();
+      if (!e.getKey().startsWith(prefijo)) continue;
+      cancelados.add(e.getKey());
+      usuarios.addAll(e.getValue());
+      it.remove();
+    }
+    Resultado res = new Resultado();
+    res.afectados.addAll(usuarios);
+    reubicar(res);
+    return res;
+  }
+
+  private void reubicar(Resultado res){
+    // un subpedido afectado arrastra a todo su pedido original
+    Map<Integer,List<Pedido>> grupos = new LinkedHashMap<>();
+    for (int id : res.afectados) {
+      Pedido p = pedidoPorId.get(id);
+      int pid = (p.idPedidoOriginal == -1 ? p.id : p.idPedidoOriginal);
+      grupos.putIfAbsent(pid, porOriginal.get(pid));
+    }
+    List<List<Pedido>> orden = new ArrayList<>(grupos.values());
+    Comparator<Pedido> porVencimiento = Comparator.comparingLong((Pedido p) -> p.vencimientoUTC).thenComparingInt(p -> p.id);
+    orden.sort(Comparator.comparing(g -> Collections.min(g, porVencimiento), porVencimiento));
+
+    // primero se libera todo: los afectados compiten entre sí por lo que dejan.
+    // insertarGrupo vuelve a contar cada subpedido, así que salen de los contadores
+    res.afectados.clear();
+    for (List<Pedido> grupo : orden) {
+      for (Pedido p : grupo) {
+        res.afectados.add(p.id);
+        Ruta anterior = sol.rutas.remove(p.id);
+        if (anterior == null) { sol.subpedidosTarde--; continue; }
+        mover(p, anterior, -p.cantidad);
+        indexar(p, anterior, false);
+        if (anterior.aTiempo) sol.subpedidosATiempo--; else sol.subpedidosTarde--;
+      }
+    }
+    registro.confirmar(0);
+
+    // insertarGrupo reserva contra el registro desde su propio punto de guardado y, si
+    // un subpedido no encuentra ruta, revierte el grupo entero
+    for (List<Pedido> grupo : orden) {
+      if (!motor.insertarGrupo(grupo, inst, registro, capTotalDiaria, sol, true)) { res.sinRuta += grupo.size(); continue; }
+      for (Pedido p : grupo) {
+        Ruta r = sol.rutas.get(p.id);
+        indexar(p, r, true);
+        if (r.aTiempo) res.reubicadosATiempo++; else res.reubicadosTarde++;
+      }
+    }
+    registro.confirmar(0);
+    MotorACO.calcularObjetivo(sol, inst);
+  }
+
+  private void mover(Pedido p, Ruta r, int cantidad){
+    for (SubRuta s : r.subrutas) {
+      registro.reservarDia(RegistroCapacidad.indiceDia(s), cantidad);
+      registro.reservarVueloDia(Claves.claveCapacidadVueloDia(s.vuelo, s.salidaAjustadaUTC), cantidad);
+    }
+    registro.reservarRutaEnAlmacen(r, p.destino, cantidad);
+  }
+
+  private void indexar(Pedido p, Ruta r, boolean agregar){
+    for (SubRuta s : r.subrutas) {
+      String clave = Claves.claveCapacidadVueloDia(s.vuelo, s.salidaAjustadaUTC);
+      if (agregar) rutasPorVueloDia.computeIfAbsent(clave, k -> new HashSet<>()).add(p.id);
+      else { Set<Integer> u = rutasPorVueloDia.get(clave); if (u != null) u.remove(p.id); }
+    }
+  }
+}
@@ -41,4 +41,62 @@ public class Heuristica {
     double eta = 0.20*hCap + 0.45*hProg + 0.20*hWait + 0.15*hSlack;
     return Math.max(0, eta);
   }
+
+  // Arreglos de trabajo de evaluarLote, reutilizables entre llamadas (uno por motor).
+  public static final class Puntajes {
+    public boolean[] activo = new boolean[0]; // lo llena quien llama: filtros estructurales
+    public double[] eta = new double[0];
+    public long[] salida = new long[0], llegada = new long[0];
+    double[] hProg = new double[0], hWait = new double[0], hSlack = new double[0];
+
+    public void asegurar(int n){
+      if (eta.length >= n) return;
+      activo = new boolean[n]; eta = new double[n];
+      salida = new long[n]; llegada = new long[n];
+      hProg = new double[n]; hWait = new double[n]; hSlack = new double[n];
+    }
+  }
+
+  // Misma puntuación que evaluarHeuristica para todo un lote de salidas del aeropuerto
+  // actual, en ciclos sobre arreglos: desplazamiento al primer día factible, filtro de
+  // vencimiento y componentes de espera/holgura/progreso; después la capacidad (que
+  // requiere buscar en los mapas) solo para los que siguen vivos, y la suma ponderada.
+  // Solo se evalúan las posiciones con activo[i]; el resto queda con eta 0.
+  public static void evaluarLote(
+      Pedido pedido, int destinoPedido, long tiempoActualUTC, LoteVuelos lote,
+      Map<String,Integer> capLocal, Map<String,Integer> capGlobal, Instancia inst, Puntajes p) {
+
+    int n = lote.tamanio;
+    long umbral = tiempoActualUTC + MINUTOS_CONEXION_MINIMA;
+    long limite = pedido.vencimientoUTC + TOLERANCIA_RETRASO_MINUTOS;
+    double[] eta = p.eta, hProg = p.hProg, hWait = p.hWait, hSlack = p.hSlack;
+    long[] salidas = p.salida, llegadas = p.llegada;
+
+    for (int i=0; i<n; i++){
+      long falta = umbral - lote.salidaUTC[i];
+      long corrimiento = falta > 0 ? ((falta + 1439) / 1440) * 1440 : 0;
+      salidas[i] = lote.salidaUTC[i] + corrimiento;
+      llegadas[i] = lote.llegadaUTC[i] + corrimiento;
+      eta[i] = (p.activo[i] && llegadas[i] <= limite) ? 1.0 : 0.0;
+    }
+
+    for (int i=0; i<n; i++){
+      if (eta[i] == 0.0) continue;
+      double espera = Math.max(0, salidas[i] - tiempoActualUTC);
+      hWait[i] = 1.0 / (1.0 + espera/45.0);
+      double slackAjustado = (pedido.vencimientoUTC - llegadas[i]) - COLCHON_SEGURIDAD_MINUTOS;
+      hSlack[i] = slackAjustado >= 0 ? 1.0 : Math.exp(slackAjustado/60.0);
+      hProg[i] = inst.progresoHacia[lote.destino[i]][destinoPedido];
+    }
+
+    for (int i=0; i<n; i++){
+      if (eta[i] == 0.0) continue;
+      String claveDia = lote.claves[i] + "|" + (int)((salidas[i] - lote.salidaUTC[i]) / 1440L);
+      int usado = capGlobal.getOrDefault(claveDia,0) + capLocal.getOrDefault(claveDia,0);
+      int capacidadDisponible = lote.capacidad[i] - usado;
+      if (capacidadDisponible < pedido.cantidad) { eta[i] = 0.0; continue; }
+      double hCap = capacidadDisponible / (double) lote.capacidad[i];
+      eta[i] = Math.max(0, 0.20*hCap + 0.45*hProg[i] + 0.20*hWait[i] + 0.15*hSlack[i]);
+    }
+  }
 }
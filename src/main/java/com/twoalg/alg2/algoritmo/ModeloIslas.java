@@ -0,0 +1,237 @@
+package alg2.algoritmo;
+
+import alg2.model.*;
+import alg2.funcaux.Claves;
+import alg2.config.ConfiguracionACO;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+// Modelo de islas: N colonias (un MotorACO cada una, con su propia feromona) que cada
+// `intervalo` iteraciones publican su élite y el delta de feromona acumulado desde la
+// migración anterior, y reciben los de las demás. Al terminar hay una época final en
+// la que todas adoptan la mejor élite, de modo que convergen a un mismo mejor global;
+// las islas no lo pulen; quien las lanzó lo pule una sola vez con la búsqueda local.
+// Si tras una migración alguna élite alcanza valorMeta, todas las islas lo ven en la
+// misma época y saltan juntas a la final.
+// El canal es memoria compartida (islas en hilos) o un directorio (islas en procesos).
+public class ModeloIslas {
+
+  public static final double PESO_MIGRACION = 0.5;       // peso del delta ajeno promediado
+  public static final long ESPERA_MAXIMA_MS = 600_000;   // si una isla no llega, se sigue sin ella
+
+  public static class Migrante {
+    public final int isla, epoca;
+    public final Solucion elite;
+    public final Map<String,Double> deltaFeromona;
+    public Migrante(int isla, int epoca, Solucion elite, Map<String,Double> deltaFeromona){
+      this.isla = isla; this.epoca = epoca; this.elite = elite; this.deltaFeromona = deltaFeromona;
+    }
+  }
+
+  public interface Canal {
+    void publicar(Migrante m) throws IOException;
+    // migrantes de la época; espera hasta tener los de todas las islas o hasta esperaMs
+    List<Migrante> recolectar(int epoca, long esperaMs) throws IOException, InterruptedException;
+  }
+
+  // la última época es la de convergencia: todas publican su mejor y adoptan el mejor
+  public static int epocaFinal(ConfiguracionACO cfg, int intervalo){
+    return cfg.maxIteraciones / intervalo + 1;
+  }
+
+  // Corre una isla completa y devuelve el mejor global (sin pulir) tras la época final.
+  public static Solucion correrIsla(MotorACO motor, Instancia inst, int isla, Canal canal, int intervalo, double valorMeta)
+      throws IOException, InterruptedException {
+    motor.iniciar(inst);
+    Map<String,Double> foto = new HashMap<>(motor.feromona);
+    int epoca = 0;
+    for (int it = 1; it <= motor.cfg.maxIteraciones; it++) {
+      motor.iterar(inst);
+      if (it % intervalo != 0) continue;
+      epoca++;
+      canal.publicar(new Migrante(isla, epoca, motor.mejorGlobal(), delta(motor.feromona, foto)));
+      List<Migrante> recibidos = canal.recolectar(epoca, ESPERA_MAXIMA_MS);
+      migrar(motor, inst, isla, recibidos);
+      if (mejorValor(recibidos) >= valorMeta) break;
+      foto = new HashMap<>(motor.feromona);
+    }
+    int fin = epocaFinal(motor.cfg, intervalo);
+    canal.publicar(new Migrante(isla, fin, motor.mejorGlobal(), Map.of()));
+    migrar(motor, inst, isla, canal.recolectar(fin, ESPERA_MAXIMA_MS));
+    return motor.mejorGlobal();
+  }
+
+  // mejor élite publicada en la época (la propia incluida): es la misma para todas las islas
+  private static double mejorValor(List<Migrante> recibidos){
+    double mejor = Double.NEGATIVE_INFINITY;
+    for (Migrante m : recibidos) if (m.elite != null) mejor = Math.max(mejor, m.elite.valorObjetivo);
+    return mejor;
+  }
+
+  private static void migrar(MotorACO motor, Instancia inst, int isla, List<Migrante> recibidos){
+    Solucion elite = null;
+    List<Map<String,Double>> deltas = new ArrayList<>();
+    for (Migrante m : recibidos) {
+      if (m.isla == isla) continue;
+      if (!m.deltaFeromona.isEmpty()) deltas.add(m.deltaFeromona);
+      if (m.elite != null && (elite == null || m.elite.valorObjetivo > elite.valorObjetivo)) elite = m.elite;
+    }
+    motor.recibirMigracion(elite, deltas, PESO_MIGRACION, inst);
+  }
+
+  private static Map<String,Double> delta(Map<String,Double> actual, Map<String,Double> foto){
+    Map<String,Double> d = new HashMap<>();
+    for (Map.Entry<String,Double> e : actual.entrySet()) {
+      double v = e.getValue() - foto.getOrDefault(e.getKey(), e.getValue());
+      if (Math.abs(v) > 1e-12) d.put(e.getKey(), v);
+    }
+    return d;
+  }
+
+  // N islas en hilos de este proceso; isla i usa la semilla semilla + i.
+  // Se pule una vez el mejor, con el motor de la isla que lo tiene
+  public static Solucion correrEnHilos(ConfiguracionACO cfg, Instancia inst, int numIslas, int intervalo, long semilla,
+                                       double valorMeta)
+      throws InterruptedException, ExecutionException {
+    CanalMemoria canal = new CanalMemoria(numIslas);
+    ExecutorService pool = Executors.newFixedThreadPool(numIslas);
+    try {
+      List<MotorACO> motores = new ArrayList<>();
+      List<Future<Solucion>> futuros = new ArrayList<>();
+      for (int i = 0; i < numIslas; i++) {
+        int isla = i;
+        MotorACO motor = new MotorACO(cfg, semilla + isla);
+        motores.add(motor);
+        futuros.add(pool.submit(() -> correrIsla(motor, inst, isla, canal, intervalo, valorMeta)));
+      }
+      MotorACO mejor = null;
+      for (int i = 0; i < numIslas; i++) {
+        Solucion s = futuros.get(i).get();
+        if (mejor == null || s.valorObjetivo > mejor.mejorGlobal().valorObjetivo) mejor = motores.get(i);
+      }
+      return mejor.pulir(inst);
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  public static class CanalMemoria implements Canal {
+    private final int numIslas;
+    private final Map<Integer,List<Migrante>> porEpoca = new HashMap<>();
+
+    public CanalMemoria(int numIslas){ this.numIslas = numIslas; }
+
+    @Override public synchronized void publicar(Migrante m){
+      porEpoca.computeIfAbsent(m.epoca, e -> new ArrayList<>()).add(m);
+      notifyAll();
+    }
+
+    @Override public synchronized List<Migrante> recolectar(int epoca, long esperaMs) throws InterruptedException {
+      long limite = System.currentTimeMillis() + esperaMs;
+      List<Migrante> l = porEpoca.computeIfAbsent(epoca, e -> new ArrayList<>());
+      for (long falta; l.size() < numIslas && (falta = limite - System.currentTimeMillis()) > 0; ) wait(falta);
+      List<Migrante> out = new ArrayList<>(l);
+      out.sort(Comparator.comparingInt(m -> m.isla)); // orden estable => corrida reproducible
+      return out;
+    }
+  }
+
+  // Un archivo por (época, isla) en un directorio compartido. Se escribe a un temporal
+  // y se renombra, así los lectores nunca ven un archivo a medias.
+  public static class CanalDirectorio implements Canal {
+    private static final long SONDEO_MS = 50;
+
+    private final Path dir;
+    private final int numIslas;
+    private final Map<String,Vuelo> vuelosPorClave = new HashMap<>();
+
+    public CanalDirectorio(Path dir, int numIslas, Instancia inst) throws IOException {
+      this.dir = Files.createDirectories(dir);
+      this.numIslas = numIslas;
+      for (Vuelo v : inst.vuelos) vuelosPorClave.put(Claves.claveVuelo(v), v);
+    }
+
+    private Path archivo(int epoca, int isla){ return dir.resolve(String.format("epoca-%05d-isla-%03d.txt", epoca, isla)); }
+
+    @Override public void publicar(Migrante m) throws IOException {
+      Path tmp = dir.resolve(archivo(m.epoca, m.isla).getFileName() + ".tmp");
+      try (BufferedWriter w = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) { escribir(m, w); }
+      Files.move(tmp, archivo(m.epoca, m.isla), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @Override public List<Migrante> recolectar(int epoca, long esperaMs) throws IOException, InterruptedException {
+      long limite = System.currentTimeMillis() + esperaMs;
+      while (true) {
+        int listos = 0;
+        for (int i = 0; i < numIslas; i++) if (Files.exists(archivo(epoca, i))) listos++;
+        if (listos == numIslas || System.currentTimeMillis() >= limite) break;
+        Thread.sleep(SONDEO_MS);
+      }
+      List<Migrante> out = new ArrayList<>();
+      for (int i = 0; i < numIslas; i++) {
+        Path a = archivo(epoca, i);
+        if (!Files.exists(a)) continue;
+        try (BufferedReader r = Files.newBufferedReader(a, StandardCharsets.UTF_8)) { out.add(leer(i, epoca, r)); }
+      }
+      return out;
+    }
+
+    // formato (separado por tabs):
+    //   E  valorObjetivo  aTiempo  tarde  violaciones
+    //   R  idPedido  aTiempo  origen  llegadaFinalUTC  tiempoTotal  capacidadMinimaDisponible
+    //   S  claveVuelo  salidaAjustadaUTC  llegadaAjustadaUTC  capacidadUsada   (tramos de la R anterior)
+    //   F  claveVuelo  delta
+    private void escribir(Migrante m, BufferedWriter w) throws IOException {
+      Solucion s = m.elite;
+      w.write("E\t" + s.valorObjetivo + "\t" + s.subpedidosATiempo + "\t" + s.subpedidosTarde + "\t" + s.violacionesCapacidad + "\n");
+      for (Map.Entry<Integer,Ruta> e : s.rutas.entrySet()) {
+        Ruta r = e.getValue();
+        w.write("R\t" + e.getKey() + "\t" + r.aTiempo + "\t" + r.origen + "\t" + r.llegadaFinalUTC + "\t" + r.tiempoTotal + "\t" + r.capacidadMinimaDisponible + "\n");
+        for (SubRuta sr : r.subrutas)
+          w.write("S\t" + Claves.claveVuelo(sr.vuelo) + "\t" + sr.salidaAjustadaUTC + "\t" + sr.llegadaAjustadaUTC + "\t" + sr.capacidadUsada + "\n");
+      }
+      for (Map.Entry<String,Double> e : m.deltaFeromona.entrySet()) w.write("F\t" + e.getKey() + "\t" + e.getValue() + "\n");
+    }
+
+    private Migrante leer(int isla, int epoca, BufferedReader r) throws IOException {
+      Solucion s = new Solucion();
+      Map<String,Double> delta = new HashMap<>();
+      Ruta ruta = null;
+      for (String linea; (linea = r.readLine()) != null; ) {
+        String[] c = linea.split("\t");
+        switch (c[0]) {
+          case "E":
+            s.valorObjetivo = Double.parseDouble(c[1]);
+            s.subpedidosATiempo = Integer.parseInt(c[2]);
+            s.subpedidosTarde = Integer.parseInt(c[3]);
+            s.violacionesCapacidad = Integer.parseInt(c[4]);
+            break;
+          case "R":
+            ruta = new Ruta();
+            ruta.aTiempo = Boolean.parseBoolean(c[2]);
+            ruta.origen = "null".equals(c[3]) ? null : c[3];
+            ruta.llegadaFinalUTC = Long.parseLong(c[4]);
+            ruta.tiempoTotal = Double.parseDouble(c[5]);
+            ruta.capacidadMinimaDisponible = Double.parseDouble(c[6]);
+            s.rutas.put(Integer.parseInt(c[1]), ruta);
+            break;
+          case "S":
+            Vuelo v = vuelosPorClave.get(c[1]);
+            if (v == null || ruta == null) throw new IOException("Tramo desconocido en migrante: " + linea);
+            ruta.subrutas.add(new SubRuta(v, Long.parseLong(c[2]), Long.parseLong(c[3]), Integer.parseInt(c[4])));
+            break;
+          case "F":
+            delta.put(c[1], Double.parseDouble(c[2]));
+            break;
+          default:
+            throw new IOException("Línea inválida en migrante: " + linea);
+        }
+      }
+      return new Migrante(isla, epoca, s, delta);
+    }
+  }
+}
@@ -0,0 +1,593 @@
+package alg2.algoritmo;
+
+import alg2.model.*;
+import alg2.funcaux.Claves;
+import alg2.config.ConfiguracionACO;
+import alg2.config.Parametros;
+
+import java.util.*;
+
+import static alg2.config.Parametros.*;
+import static alg2.algoritmo.ConstruccionRuta.limitarEntre;
+
+// Motor ACO con estado propio: configuración inmutable, feromona y generador
+// aleatorio por instancia. Varios motores pueden planificar en paralelo sobre la
+// misma Instancia (que solo se lee). La API estática de ConstruccionRuta y
+// Planificador delega en un motor que usa el estado estático de siempre.
+public class MotorACO {
+
+  public final ConfiguracionACO cfg;
+  public final Map<String, Double> feromona;
+  public final Random azar;
+  private final Heuristica.Puntajes puntajes = new Heuristica.Puntajes(); // buffers de construirRuta
+
+  public MotorACO(ConfiguracionACO cfg, long semilla){
+    this(cfg, new HashMap<>(), new Random(semilla));
+  }
+
+  MotorACO(ConfiguracionACO cfg, Map<String, Double> feromona, Random azar){
+    this.cfg = cfg;
+    this.feromona = feromona;
+    this.azar = azar;
+  }
+
+  // voraz: siempre toma el mejor candidato y no toca la feromona (construcción determinista)
+  public Ruta construirRutaParaPedido(Pedido pedido, String origen, Instancia inst, Map<String,Integer> capGlobal, boolean voraz) {
+    return construirRuta(pedido, origen, inst, capGlobal, null, voraz);
+  }
+
+  // contra un registro: además de los vuelos-día, respeta su almacén si lo controla
+  public Ruta construirRutaParaPedido(Pedido pedido, String origen, Instancia inst, RegistroCapacidad registro, boolean voraz) {
+    return construirRuta(pedido, origen, inst, registro.vueloDia(), registro.controlaAlmacen() ? registro : null, voraz);
+  }
+
+  private Ruta construirRuta(Pedido pedido, String origen, Instancia inst, Map<String,Integer> capGlobal,
+                             RegistroCapacidad almacen, boolean voraz) {
+    if (cfg.anchoHaz > 0) return construirRutaHaz(pedido, origen, inst, capGlobal, almacen, voraz);
+
+    String actual = origen;
+    int idxActual = inst.indiceAeropuerto.get(origen), idxPrevio = -1;
+    long tiempoActual = pedido.liberacionUTC;
+    Map<String,Integer> capLocal = new HashMap<>();
+    int[] visitasPorAeropuerto = new int[inst.indiceAAeropuerto.length];
+    visitasPorAeropuerto[idxActual] = 1;
+    Ruta ruta = new Ruta();
+    int hops = 0;
+    int contOrig = inst.continenteAeropuerto[idxActual];
+
+    double minCapDisp = Double.POSITIVE_INFINITY;
+
+    while(!actual.equals(pedido.destino) && hops < MAX_ESCALAS){
+      List<Paso> lista = candidatos(pedido, inst, idxActual, idxPrevio, visitasPorAeropuerto, tiempoActual, hops,
+                                    contOrig, capLocal, capGlobal, almacen);
+      if (lista.isEmpty()) return null;
+
+      Paso elegido = elegir(lista, voraz);
+
+      // actualización local
+      if (!voraz) actualizacionLocal(elegido.v);
+
+      // capacidad local (día)
+      String claveDia = Claves.claveCapacidadVueloDia(elegido.v, elegido.s);
+      capLocal.put(claveDia, capLocal.getOrDefault(claveDia,0) + pedido.cantidad);
+
+      // subruta
+      SubRuta sr = new SubRuta(elegido.v, elegido.s, elegido.l, pedido.cantidad);
+      ruta.subrutas.add(sr);
+
+      int usadoEstimado = capLocal.get(claveDia);
+      double disp = Math.max(0, elegido.v.capacidadMaxima - usadoEstimado);
+      minCapDisp = Math.min(minCapDisp, disp);
+
+      idxPrevio = idxActual;
+      actual = elegido.v.destino;
+      idxActual = elegido.destino;
+      tiempoActual = elegido.l;
+      visitasPorAeropuerto[idxActual]++;
+      hops++;
+    }
+
+    if (!actual.equals(pedido.destino)) return null;
+    ruta.origen = origen;
+    ruta.llegadaFinalUTC = tiempoActual;
+    ruta.tiempoTotal = Math.max(0, (ruta.llegadaFinalUTC - pedido.liberacionUTC)/60.0);
+    ruta.capacidadMinimaDisponible = (Double.isInfinite(minCapDisp) ? 0.0 : minCapDisp);
+    return ruta;
+  }
+
+  // un tramo posible desde el aeropuerto actual, con su valor tau^alfa * eta^beta
+  private static final class Paso { Vuelo v; int destino; double valor; long s; long l; }
+
+  // Los mejores TAMANIO_LISTA_CANDIDATOS tramos factibles desde idxActual, de mayor a
+  // menor valor. Primero la lista estática del par (aeropuerto, destino); escaneo
+  // completo solo si ninguno de sus vuelos resulta factible.
+  private List<Paso> candidatos(Pedido pedido, Instancia inst, int idxActual, int idxPrevio, int[] visitas,
+                                long tiempoActual, int hops, int contOrig,
+                                Map<String,Integer> capLocal, Map<String,Integer> capGlobal, RegistroCapacidad almacen){
+    String actual = inst.indiceAAeropuerto[idxActual];
+    LoteVuelos todos = inst.lotesPorOrigen.get(actual);
+    if (todos == null || todos.tamanio == 0) return List.of();
+
+    int idxDestino = inst.indiceAeropuerto.get(pedido.destino);
+    int contDest = inst.continenteAeropuerto[idxDestino];
+    int contActual = inst.continenteAeropuerto[idxActual];
+
+    PriorityQueue<Paso> pq = new PriorityQueue<>(Comparator.comparingDouble(c -> -c.valor));
+    Map<String,LoteVuelos> listasAeropuerto = inst.listasCandidatas.get(actual);
+    LoteVuelos estatica = (listasAeropuerto == null) ? null : listasAeropuerto.get(pedido.destino);
+    LoteVuelos lote = (estatica != null) ? estatica : todos;
+    while (true) {
+      puntajes.asegurar(lote.tamanio);
+      boolean[] activo = puntajes.activo;
+      for (int i=0; i<lote.tamanio; i++){
+        int d = lote.destino[i];
+        boolean ok = visitas[d] < MAX_VISITAS_POR_AEROPUERTO
+                  && !(EVITAR_RETROCESO && d == idxPrevio)
+                  && lote.vuelos[i].estado != EstadoVuelo.CANCELADO;
+        if (ok && APLICAR_REGLAS_CONTINENTE)
+          ok = continentePermitido(contOrig, contDest, contActual, lote.continenteDestino[i]);
+        activo[i] = ok;
+      }
+      Heuristica.evaluarLote(pedido, idxDestino, tiempoActual, lote, capLocal, capGlobal, inst, puntajes);
+
+      for (int i=0; i<lote.tamanio; i++){
+        double eta = puntajes.eta[i];
+        if (eta <= 0) continue;
+        long salida = puntajes.salida[i], llegada = puntajes.llegada[i];
+
+        // almacén: espera en la escala actual y ventana de recojo en destino
+        if (almacen != null){
+          if (hops > 0 && !almacen.cabeEnAlmacen(actual, tiempoActual, salida, pedido.cantidad)) continue;
+          if (lote.destino[i] == idxDestino
+              && !almacen.cabeEnAlmacen(pedido.destino, llegada, llegada + VENTANA_RECOJO_MINUTOS, pedido.cantidad)) continue;
+        }
+
+        double tau = feromona.getOrDefault(lote.claves[i], cfg.feromonaInicial);
+        double valor = Math.pow(Math.max(cfg.feromonaMin, Math.min(cfg.feromonaMax, tau)), cfg.pesoFeromona)
+                     * Math.pow(eta, cfg.pesoHeuristica);
+
+        Paso c = new Paso(); c.v=lote.vuelos[i]; c.destino=lote.destino[i]; c.valor=valor; c.s=salida; c.l=llegada;
+        pq.offer(c);
+      }
+      if (!pq.isEmpty() || lote == todos) break;
+      lote = todos;
+    }
+
+    List<Paso> lista = new ArrayList<>();
+    for (int i=0; i<Parametros.TAMANIO_LISTA_CANDIDATOS && !pq.isEmpty(); i++) lista.add(pq.poll());
+    return lista;
+  }
+
+  // reglas de continente: si origen y destino comparten continente (o ya se llegó al del
+  // destino) solo se avanza dentro del destino; si no, se sale del continente de origen
+  // directo al de destino o por uno intermedio, sin volver atrás
+  static boolean continentePermitido(int contOrig, int contDest, int contActual, int contSiguiente){
+    if (contSiguiente < 0) return false;
+    if (contOrig == contDest || contActual == contDest) return contSiguiente == contDest;
+    if (contActual == contOrig) return contSiguiente == contOrig || contSiguiente == contDest;
+    return contSiguiente == contActual || contSiguiente == contDest;
+  }
+
+  // regla de transición: explotar (el mejor) con probabilidad q0, si no ruleta por valor
+  private Paso elegir(List<Paso> lista, boolean voraz){
+    if (voraz || azar.nextDouble() < cfg.probabilidadExplotar) return lista.get(0);
+    double sum = 0.0; for (Paso c: lista) sum += c.valor;
+    double r = azar.nextDouble() * sum;
+    for (int i=0;i<lista.size();i++){ r -= lista.get(i).valor; if (r<=0 || i==lista.size()-1) return lista.get(i); }
+    return lista.get(0);
+  }
+
+  private void actualizacionLocal(Vuelo v){
+    String k = Claves.claveVuelo(v);
+    double tVal = feromona.getOrDefault(k, cfg.feromonaInicial);
+    double nuevo = (1.0 - cfg.tasaActualizacionLocal) * tVal + cfg.tasaActualizacionLocal * cfg.feromonaInicial;
+    feromona.put(k, limitarEntre(nuevo, cfg.feromonaMin, cfg.feromonaMax));
+  }
+
+  // ruta parcial del haz; los tramos se recuperan siguiendo al padre
+  private static final class Parcial {
+    Parcial padre; Paso paso;
+    int idx, idxPrevio, hops;
+    long tiempo, cota;
+    int[] visitas;
+    double logValor;  // suma de log(valor) de los tramos
+  }
+
+  // Beam-ACO: en vez de una caminata, avanza a la vez los cfg.anchoHaz mejores parciales.
+  // Cada parcial genera hasta anchoHaz hijos muestreados sin reemplazo con la regla de
+  // transición (voraz: los mejores). Se podan los hijos que ya no pueden llegar: saltos
+  // restantes (distanciaSaltos) por encima de MAX_ESCALAS, o cota de llegada (llegada +
+  // saltos restantes * conexión mínima) fuera de la tolerancia. Sobreviven los de menor
+  // cota (empates: mayor valor acumulado). Gana la ruta completa que llega antes.
+  private Ruta construirRutaHaz(Pedido pedido, String origen, Instancia inst, Map<String,Integer> capGlobal,
+                                RegistroCapacidad almacen, boolean voraz){
+    int ancho = cfg.anchoHaz;
+    int idxOrigen = inst.indiceAeropuerto.get(origen);
+    int idxDestino = inst.indiceAeropuerto.get(pedido.destino);
+    int contOrig = inst.continenteAeropuerto[idxOrigen];
+    long limite = pedido.vencimientoUTC + TOLERANCIA_RETRASO_MINUTOS;
+    Map<String,Integer> sinLocal = Map.of(); // una ruta no repite vuelo-día (MAX_VISITAS_POR_AEROPUERTO)
+
+    Parcial raiz = new Parcial();
+    raiz.idx = idxOrigen; raiz.idxPrevio = -1; raiz.tiempo = pedido.liberacionUTC;
+    raiz.visitas = new int[inst.indiceAAeropuerto.length];
+    raiz.visitas[idxOrigen] = 1;
+
+    List<Parcial> haz = new ArrayList<>(List.of(raiz));
+    Parcial mejor = null;
+    if (idxOrigen == idxDestino) { mejor = raiz; haz.clear(); }
+
+    for (int salto = 0; salto < MAX_ESCALAS && !haz.isEmpty(); salto++){
+      List<Parcial> hijos = new ArrayList<>();
+      for (Parcial p : haz){
+        List<Paso> lista = candidatos(pedido, inst, p.idx, p.idxPrevio, p.visitas, p.tiempo, p.hops,
+                                      contOrig, sinLocal, capGlobal, almacen);
+        for (Paso c : muestrear(lista, ancho, voraz)){
+          Parcial h = new Parcial();
+          h.padre = p; h.paso = c;
+          h.idx = c.destino; h.idxPrevio = p.idx; h.hops = p.hops + 1;
+          h.tiempo = c.l;
+          h.logValor = p.logValor + Math.log(c.valor);
+          if (h.idx == idxDestino){
+            if (mejor == null || h.tiempo < mejor.tiempo || (h.tiempo == mejor.tiempo && h.logValor > mejor.logValor)) mejor = h;
+            continue;
+          }
+          int faltan = inst.distanciaSaltos[h.idx][idxDestino];
+          if (faltan >= 1_000_000 || h.hops + faltan > MAX_ESCALAS) continue;
+          h.cota = h.tiempo + (long)faltan * MINUTOS_CONEXION_MINIMA;
+          if (h.cota > limite) continue;
+          h.visitas = p.visitas.clone();
+          h.visitas[h.idx]++;
+          hijos.add(h);
+        }
+      }
+      hijos.sort(Comparator.comparingLong((Parcial h) -> h.cota).thenComparingDouble(h -> -h.logValor));
+      haz = hijos.size() > ancho ? new ArrayList<>(hijos.subList(0, ancho)) : hijos;
+    }
+    if (mejor == null) return null;
+
+    List<Paso> tramos = new ArrayList<>();
+    for (Parcial p = mejor; p.paso != null; p = p.padre) tramos.add(p.paso);
+    Collections.reverse(tramos);
+
+    Ruta ruta = new Ruta();
+    double minCapDisp = Double.POSITIVE_INFINITY;
+    for (Paso c : tramos){
+      if (!voraz) actualizacionLocal(c.v);
+      ruta.subrutas.add(new SubRuta(c.v, c.s, c.l, pedido.cantidad));
+      minCapDisp = Math.min(minCapDisp, Math.max(0, c.v.capacidadMaxima - pedido.cantidad));
+    }
+    ruta.origen = origen;
+    ruta.llegadaFinalUTC = mejor.tiempo;
+    ruta.tiempoTotal = Math.max(0, (ruta.llegadaFinalUTC - pedido.liberacionUTC)/60.0);
+    ruta.capacidadMinimaDisponible = (Double.isInfinite(minCapDisp) ? 0.0 : minCapDisp);
+    return ruta;
+  }
+
+  // k tramos distintos de la lista: los primeros si es voraz, si no con la regla de transición
+  private List<Paso> muestrear(List<Paso> lista, int k, boolean voraz){
+    if (voraz || lista.size() <= k) return lista.size() <= k ? lista : lista.subList(0, k);
+    List<Paso> resto = new ArrayList<>(lista), out = new ArrayList<>(k);
+    while (out.size() < k){
+      Paso c = elegir(resto, false);
+      resto.remove(c);
+      out.add(c);
+    }
+    return out;
+  }
+
+
+
+  public Solucion construirSolucionHeuristica(Instancia inst){
+    Solucion sol = new Solucion();
+    Map<String,Integer> vacio = new HashMap<>();
+
+    for (Pedido p : inst.pedidos) {
+        Ruta mejorRuta = null;
+
+        for (String hub : origenesPosibles(p)) {
+            Ruta r = construirRutaParaPedido(p, hub, inst, vacio, false);
+            if (r != null) {
+                if (mejorRuta == null || r.llegadaFinalUTC < mejorRuta.llegadaFinalUTC) {
+                    mejorRuta = r;
+                }
+            }
+        }
+
+        if (mejorRuta != null) {
+            mejorRuta.aTiempo = (mejorRuta.llegadaFinalUTC <= p.vencimientoUTC);
+            sol.rutas.put(p.id, mejorRuta);
+            if (mejorRuta.aTiempo) sol.subpedidosATiempo++; else sol.subpedidosTarde++;
+        } else {
+            sol.subpedidosTarde++;
+        }
+    }
+
+    long aTiempo = inst.pedidos.stream()
+        .filter(p -> sol.rutas.get(p.id)!=null && sol.rutas.get(p.id).aTiempo)
+        .mapToLong(p -> p.cantidad).sum();
+
+    long tarde = inst.pedidos.stream()
+        .filter(p -> sol.rutas.get(p.id)==null || !sol.rutas.get(p.id).aTiempo)
+        .mapToLong(p -> p.cantidad).sum();
+
+    sol.valorObjetivo = aTiempo - 3*tarde;
+    return sol;
+  }
+
+
+  public Solucion construirSolucionGlobal(Instancia inst){
+    Solucion sol = new Solucion();
+
+    RegistroCapacidad registro = new RegistroCapacidad(inst, cfg.controlarAlmacen);
+    int capTotalDiaria = inst.vuelos.stream().mapToInt(v -> v.capacidadMaxima).sum();
+
+    for (List<Pedido> grupo : agruparPorOriginal(inst).values()) {
+        insertarGrupo(grupo, inst, registro, capTotalDiaria, sol, false);
+    }
+
+    calcularObjetivo(sol, inst);
+    return sol;
+  }
+
+  // Constructor determinista y con capacidad: inserta primero los grupos más urgentes
+  // y con mayor regret (diferencia de llegada entre la mejor y la segunda mejor ruta).
+  public Solucion construirSolucionRegret(Instancia inst){
+    Solucion sol = new Solucion();
+
+    RegistroCapacidad registro = new RegistroCapacidad(inst, cfg.controlarAlmacen);
+    int capTotalDiaria = inst.vuelos.stream().mapToInt(v -> v.capacidadMaxima).sum();
+
+    class Entrada { List<Pedido> grupo; double prioridad; int insertadosAlEvaluar; }
+    PriorityQueue<Entrada> cola = new PriorityQueue<>(Comparator.comparingDouble(e -> e.prioridad));
+    for (List<Pedido> grupo : agruparPorOriginal(inst).values()) {
+        Entrada e = new Entrada();
+        e.grupo = grupo;
+        e.prioridad = prioridadRegret(grupo.get(0), inst, registro);
+        cola.add(e);
+    }
+
+    int insertados = 0;
+    while (!cola.isEmpty()) {
+        Entrada e = cola.poll();
+        // reevaluación perezosa: si la capacidad cambió desde la última evaluación,
+        // recalcular y reencolar cuando deja de ser la más prioritaria
+        if (e.insertadosAlEvaluar != insertados) {
+            e.prioridad = prioridadRegret(e.grupo.get(0), inst, registro);
+            e.insertadosAlEvaluar = insertados;
+            if (!cola.isEmpty() && e.prioridad > cola.peek().prioridad) { cola.add(e); continue; }
+        }
+        if (insertarGrupo(e.grupo, inst, registro, capTotalDiaria, sol, true)) insertados++;
+    }
+
+    calcularObjetivo(sol, inst);
+    return sol;
+  }
+
+  // menor = más prioritario: holgura de la mejor ruta menos el regret frente a la segunda
+  private double prioridadRegret(Pedido p, Instancia inst, RegistroCapacidad registro){
+    long mejor = Long.MAX_VALUE, segunda = Long.MAX_VALUE;
+    for (String hub : origenesPosibles(p)) {
+        Ruta r = construirRutaParaPedido(p, hub, inst, registro, true);
+        if (r == null) continue;
+        if (r.llegadaFinalUTC < mejor) { segunda = mejor; mejor = r.llegadaFinalUTC; }
+        else if (r.llegadaFinalUTC < segunda) segunda = r.llegadaFinalUTC;
+    }
+    if (mejor == Long.MAX_VALUE) return Double.POSITIVE_INFINITY;
+
+    long limite = p.vencimientoUTC + Parametros.TOLERANCIA_RETRASO_MINUTOS;
+    double holgura = p.vencimientoUTC - mejor;
+    double regret = (segunda == Long.MAX_VALUE ? limite : Math.min(segunda, limite)) - mejor;
+    return holgura - regret;
+  }
+
+  // Enruta todos los subpedidos de un grupo contra el registro (todo o nada).
+  boolean insertarGrupo(List<Pedido> grupo, Instancia inst, RegistroCapacidad registro,
+                               int capTotalDiaria, Solucion sol, boolean voraz){
+    // los subpedidos reservan directo y se revierte si el grupo falla
+    int marca = registro.puntoGuardado();
+    boolean grupoOk = true;
+    int violacionesGrupo = 0;
+    List<Ruta> rutasGrupo = new ArrayList<>();
+
+    for (Pedido p : grupo) {
+        Ruta mejorRuta = null;
+
+        // Si no hay origen definido, probamos todos los hubs
+        for (String hub : origenesPosibles(p)) {
+            Ruta r = construirRutaParaPedido(p, hub, inst, registro, voraz);
+            if (r != null) {
+                if (mejorRuta == null || r.llegadaFinalUTC < mejorRuta.llegadaFinalUTC) {
+                    mejorRuta = r;
+                }
+            }
+        }
+
+        if (mejorRuta == null) { grupoOk = false; break; }
+
+        for (SubRuta s : mejorRuta.subrutas) {
+            int idxDia = RegistroCapacidad.indiceDia(s);
+            if (registro.usadoDia(idxDia) + p.cantidad > capTotalDiaria) { grupoOk = false; break; }
+            registro.reservarDia(idxDia, p.cantidad);
+        }
+        if (!grupoOk) break;
+
+        for (SubRuta s : mejorRuta.subrutas) {
+            String claveDia = Claves.claveCapacidadVueloDia(s.vuelo, s.salidaAjustadaUTC);
+            int nuevo = registro.reservarVueloDia(claveDia, p.cantidad);
+            if (nuevo > s.vuelo.capacidadMaxima) violacionesGrupo++;
+        }
+        registro.reservarRutaEnAlmacen(mejorRuta, p.destino, p.cantidad);
+        rutasGrupo.add(mejorRuta);
+    }
+
+    if (!grupoOk || rutasGrupo.size() != grupo.size()) {
+        registro.revertirA(marca);
+        for (Pedido p : grupo) sol.subpedidosTarde++;
+        return false;
+    }
+    registro.confirmar(marca);
+
+    for (int i = 0; i < grupo.size(); i++) {
+        Pedido p = grupo.get(i);
+        Ruta r = rutasGrupo.get(i);
+        r.aTiempo = (r.llegadaFinalUTC <= p.vencimientoUTC);
+        sol.rutas.put(p.id, r);
+        if (r.aTiempo) sol.subpedidosATiempo++; else sol.subpedidosTarde++;
+    }
+    sol.violacionesCapacidad += violacionesGrupo;
+    return true;
+  }
+
+  // orden fijo de hubs: Set.of no garantiza orden y los empates de llegada dependen de él
+  private static final List<String> HUBS_ORDENADOS = new ArrayList<>(new TreeSet<>(Parametros.CODIGOS_HUBS));
+
+  static List<String> origenesPosibles(Pedido p){
+    return (p.origen == null) ? HUBS_ORDENADOS : List.of(p.origen);
+  }
+
+  static Map<Integer,List<Pedido>> agruparPorOriginal(Instancia inst){
+    Map<Integer,List<Pedido>> porOriginal = new HashMap<>();
+    for (Pedido p : inst.pedidos) {
+        int pid = (p.idPedidoOriginal == -1 ? p.id : p.idPedidoOriginal);
+        porOriginal.computeIfAbsent(pid, k -> new ArrayList<>()).add(p);
+    }
+    return porOriginal;
+  }
+
+  static void calcularObjetivo(Solucion sol, Instancia inst){
+    long aTiempo = inst.pedidos.stream()
+        .filter(p -> sol.rutas.get(p.id) != null && sol.rutas.get(p.id).aTiempo)
+        .mapToLong(p -> p.cantidad).sum();
+
+    long tarde = inst.pedidos.stream()
+        .filter(p -> sol.rutas.get(p.id) == null || !sol.rutas.get(p.id).aTiempo)
+        .mapToLong(p -> p.cantidad).sum();
+
+    sol.valorObjetivo = aTiempo - 3*tarde - 5*sol.violacionesCapacidad;
+  }
+
+
+  public void aplicarRefuerzoFeromonas(Solucion sol, double q, Instancia inst){
+    if (sol == null) return;
+    Map<Integer,Integer> cantidadPorId = new HashMap<>();
+    for (Pedido p : inst.pedidos) cantidadPorId.put(p.id, p.cantidad);
+
+    for (Map.Entry<Integer, Ruta> eR : sol.rutas.entrySet()){
+      int chunkId = eR.getKey();
+      Ruta r = eR.getValue();
+      int cantidad = cantidadPorId.getOrDefault(chunkId, 1);
+      double bonusBase = r.aTiempo ? q : q * 0.1;
+      double bonus = bonusBase * Math.max(1, cantidad);
+
+      for (SubRuta s: r.subrutas){
+        String kk = Claves.claveVuelo(s.vuelo);
+        double nv = feromona.getOrDefault(kk, cfg.feromonaInicial) + bonus;
+        feromona.put(kk, limitarEntre(nv, cfg.feromonaMin, cfg.feromonaMax));
+      }
+    }
+  }
+
+  public Solucion ejecutarACO(Instancia inst){
+    return ejecutarACO(inst, valorMeta(inst), Long.MAX_VALUE);
+  }
+
+  // objetivo al que basta llegar: la cota menos toleranciaBrecha; infinito si no se calcula
+  public double valorMeta(Instancia inst){
+    if (cfg.toleranciaBrecha < 0) return Double.POSITIVE_INFINITY;
+    double cota = cotaObjetivo(inst, cfg.controlarAlmacen);
+    return cota - cfg.toleranciaBrecha * Math.abs(cota);
+  }
+
+  // mismo objetivo que calcularObjetivo con la cantidad a tiempo en su cota de flujo
+  // máximo y sin violaciones: ninguna solución puede superarlo
+  public static double cotaObjetivo(Instancia inst, boolean controlarAlmacen){
+    long total = 0;
+    for (Pedido p : inst.pedidos) total += p.cantidad;
+    long aTiempo = Math.min(total, new RedTiempoExpandida(inst, controlarAlmacen).cotaATiempo());
+    return aTiempo - 3*(total - aTiempo);
+  }
+
+  // corta en cuanto el mejor global alcanza valorMeta o se agotan limiteMs de reloj
+  public Solucion ejecutarACO(Instancia inst, double valorMeta, long limiteMs){
+    long inicio = System.currentTimeMillis();
+    iniciar(inst);
+    for (int it=0; it<cfg.maxIteraciones && mejorValor < valorMeta; it++){
+      if (System.currentTimeMillis() - inicio > limiteMs) break;
+      iterar(inst);
+    }
+    return pulir(inst);
+  }
+
+  // búsqueda local sobre el mejor global (la feromona no se toca)
+  public Solucion pulir(Instancia inst){
+    if (cfg.limiteBusquedaLocalMs > 0)
+      mejorGlobal = new BusquedaLocal(this, inst).mejorar(mejorGlobal, cfg.limiteBusquedaLocalMs);
+    return mejorGlobal;
+  }
+
+  // estado de la corrida en curso; ejecutarACO = iniciar + iterar, separados para
+  // que el modelo de islas pueda intercalar migraciones entre iteraciones
+  private Solucion mejorGlobal;
+  private double mejorValor = Double.NEGATIVE_INFINITY;
+  private int sinMejora;
+
+  public Solucion mejorGlobal(){ return mejorGlobal; }
+
+  public void iniciar(Instancia inst){
+    feromona.clear();
+    for (Vuelo f: inst.vuelos) feromona.putIfAbsent(Claves.claveVuelo(f), cfg.feromonaInicial);
+
+    // semilla factible: la heurística pura ignora la capacidad
+    mejorGlobal = construirSolucionRegret(inst);
+    mejorValor = mejorGlobal.valorObjetivo;
+    aplicarRefuerzoFeromonas(mejorGlobal, cfg.intensidadRefuerzo, inst);
+    sinMejora = 0;
+  }
+
+  // una iteración: hormigas, evaporación, refuerzo y reinicio por estancamiento
+  public Solucion iterar(Instancia inst){
+    List<Solucion> sols = new ArrayList<>(cfg.numHormigas);
+    for (int k=0; k<cfg.numHormigas; k++) sols.add(construirSolucionGlobal(inst));
+
+    sols.sort(Comparator.comparingDouble(s->-s.valorObjetivo));
+    Solucion mejorIter = sols.get(0);
+
+    for (String k: feromona.keySet()){
+      double nv = (1.0 - cfg.tasaEvaporacionGlobal) * feromona.get(k);
+      feromona.put(k, limitarEntre(nv, cfg.feromonaMin, cfg.feromonaMax));
+    }
+
+    aplicarRefuerzoFeromonas(mejorIter, cfg.intensidadRefuerzo * cfg.fraccionRefuerzoElite, inst);
+    aplicarRefuerzoFeromonas(mejorGlobal, cfg.intensidadRefuerzo, inst);
+
+    if (mejorIter.valorObjetivo > mejorValor){
+      mejorGlobal = mejorIter; mejorValor = mejorIter.valorObjetivo; sinMejora = 0;
+    } else sinMejora++;
+
+    if (sinMejora >= Parametros.PACIENCIA_ESTANCAMIENTO){
+      for (String k: feromona.keySet()) feromona.put(k, cfg.feromonaInicial);
+      aplicarRefuerzoFeromonas(mejorGlobal, cfg.intensidadRefuerzo, inst);
+      sinMejora = 0;
+    }
+    return mejorIter;
+  }
+
+  // migración entrante: la élite ajena reemplaza a la propia si es mejor y los
+  // deltas de feromona de las otras islas se suman (promediados) con peso w
+  public void recibirMigracion(Solucion elite, List<Map<String,Double>> deltas, double w, Instancia inst){
+    if (!deltas.isEmpty()){
+      Map<String,Double> suma = new HashMap<>();
+      for (Map<String,Double> d: deltas) for (Map.Entry<String,Double> e: d.entrySet()) suma.merge(e.getKey(), e.getValue(), Double::sum);
+      for (Map.Entry<String,Double> e: suma.entrySet()){
+        Double actual = feromona.get(e.getKey());
+        if (actual == null) continue;
+        feromona.put(e.getKey(), limitarEntre(actual + w * e.getValue() / deltas.size(), cfg.feromonaMin, cfg.feromonaMax));
+      }
+    }
+    if (elite != null && elite.valorObjetivo > mejorValor){
+      mejorGlobal = elite; mejorValor = elite.valorObjetivo; sinMejora = 0;
+      aplicarRefuerzoFeromonas(elite, cfg.intensidadRefuerzo, inst);
+    }
+  }
+}
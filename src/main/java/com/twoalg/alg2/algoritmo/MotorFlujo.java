@@ -0,0 +1,249 @@
+package alg2.algoritmo;
+
+import alg2.model.*;
+import alg2.funcaux.Claves;
+import alg2.funcaux.FlujoCostoMinimo;
+
+import java.util.*;
+
+import static alg2.config.Parametros.*;
+
+// Tercer motor de planificación: flujo de costo mínimo sobre la red expandida en el
+// tiempo (RedTiempoExpandida). El problema multi-mercancía se relaja por destino: los
+// destinos se resuelven uno tras otro, por vencimiento más próximo, contra la capacidad
+// que dejaron libre los anteriores (vuelos-día y almacenes de un RegistroCapacidad).
+// En cada destino:
+//  - cada pedido ofrece su cantidad en sus hubs posibles y la entrega en su nodo de
+//    vencimiento: flujo máximo = lo entregable a tiempo
+//  - el costo de vuelos y esperas es el tiempo que avanzan: entre los flujos máximos se
+//    busca el de menor suma de llegadas
+//  - redondeo: por vencimiento, cada subpedido toma la ruta de llegada más temprana por
+//    arcos con flujo restante >= su cantidad, si respeta escalas, visitas y continentes;
+//    los subpedidos de un mismo pedido original entran todos o ninguno
+// Reparación: los pedidos que no se pudieron redondear enteros se insertan, por grupo,
+// con la construcción voraz del ACO.
+public class MotorFlujo {
+
+  private final MotorACO reparador;
+
+  public MotorFlujo(){ this(ConstruccionRuta.motorPorDefecto()); }
+
+  public MotorFlujo(MotorACO reparador){ this.reparador = reparador; }
+
+  public Solucion planificar(Instancia inst){
+    RedTiempoExpandida red = new RedTiempoExpandida(inst, reparador.cfg.controlarAlmacen);
+    RegistroCapacidad registro = new RegistroCapacidad(inst, reparador.cfg.controlarAlmacen);
+    int capTotalDiaria = inst.vuelos.stream().mapToInt(v -> v.capacidadMaxima).sum();
+    Solucion sol = new Solucion();
+
+    String[] claveArco = new String[red.numArcos];
+    for (int a=0; a<red.numArcos; a++) claveArco[a] = Claves.claveVuelo(red.vueloArco[a]) + "|" + red.diaArco[a];
+    int[][] salientes = salientesPorNodo(red);
+
+    Map<String,List<Pedido>> porDestino = new HashMap<>();
+    for (Pedido p : inst.pedidos)
+      if (inst.indiceAeropuerto.containsKey(p.destino)) porDestino.computeIfAbsent(p.destino, k -> new ArrayList<>()).add(p);
+    Comparator<Pedido> porVencimiento = Comparator.<Pedido>comparingLong(p -> p.vencimientoUTC).thenComparingInt(p -> p.id);
+    List<List<Pedido>> grupos = new ArrayList<>(porDestino.values());
+    for (List<Pedido> g : grupos) g.sort(porVencimiento);
+    grupos.sort(Comparator.comparing(g -> g.get(0), porVencimiento));
+
+    Map<Integer,List<Pedido>> porOriginal = MotorACO.agruparPorOriginal(inst);
+    List<List<Pedido>> pendientes = new ArrayList<>();
+    for (List<Pedido> grupo : grupos)
+      planificarDestino(red, claveArco, salientes, grupo, porOriginal, registro, capTotalDiaria, sol, pendientes);
+
+    pendientes.sort(Comparator.comparing(g -> g.get(0), porVencimiento));
+    for (List<Pedido> g : pendientes) reparador.insertarGrupo(g, inst, registro, capTotalDiaria, sol, true);
+
+    for (Pedido p : inst.pedidos)
+      if (!inst.indiceAeropuerto.containsKey(p.destino)) sol.subpedidosTarde++;
+    MotorACO.calcularObjetivo(sol, inst);
+    return sol;
+  }
+
+  private void planificarDestino(RedTiempoExpandida red, String[] claveArco, int[][] salientes, List<Pedido> grupo,
+                                 Map<Integer,List<Pedido>> porOriginal, RegistroCapacidad registro,
+                                 int capTotalDiaria, Solucion sol, List<List<Pedido>> pendientes){
+    Instancia inst = red.inst;
+    int n = red.numNodos, d = inst.indiceAeropuerto.get(grupo.get(0).destino);
+    long desde = Long.MAX_VALUE, hasta = Long.MIN_VALUE, total = 0;
+    for (Pedido p : grupo){
+      desde = Math.min(desde, p.liberacionUTC + MINUTOS_CONEXION_MINIMA);
+      hasta = Math.max(hasta, p.vencimientoUTC + MINUTOS_CONEXION_MINIMA);
+      total += p.cantidad;
+    }
+
+    // nodos: red (n), cadena "entregado" en el destino (n + i), pedidos, fuente y sumidero
+    int s = 2*n + grupo.size(), t = s + 1;
+    FlujoCostoMinimo g = new FlujoCostoMinimo(t + 1);
+    int[] arcoVuelo = new int[red.numArcos], arcoEspera = new int[n];
+    Arrays.fill(arcoVuelo, -1); Arrays.fill(arcoEspera, -1);
+
+    for (int a=0; a<red.numArcos; a++){
+      int u = red.desdeArco[a], v = red.hastaArco[a];
+      if (v < 0 || red.tiempoNodo[u] < desde || red.tiempoNodo[v] > hasta) continue;
+      int libre = red.vueloArco[a].capacidadMaxima - registro.usadoVueloDia(claveArco[a]);
+      if (libre > 0) arcoVuelo[a] = g.agregarArco(u, v, libre, red.tiempoNodo[v] - red.tiempoNodo[u]);
+    }
+    for (int i=0; i<n; i++){
+      if (red.tiempoNodo[i] < desde || red.tiempoNodo[i] > hasta) continue;
+      boolean sigue = red.esperaHaciaSiguiente(i) && red.tiempoNodo[i+1] <= hasta;
+      if (sigue){
+        int libre = registro.libreEnAlmacen(inst.indiceAAeropuerto[red.aeropuertoNodo[i]], red.tiempoNodo[i], red.tiempoNodo[i+1]);
+        long cap = Math.min(red.topeEspera(i), libre == Integer.MAX_VALUE ? FlujoCostoMinimo.INFINITO : libre);
+        if (cap > 0) arcoEspera[i] = g.agregarArco(i, i+1, cap, red.tiempoNodo[i+1] - red.tiempoNodo[i]);
+      }
+      if (red.aeropuertoNodo[i] == d){
+        g.agregarArco(i, n + i, FlujoCostoMinimo.INFINITO, 0);
+        if (sigue) g.agregarArco(n + i, n + i + 1, FlujoCostoMinimo.INFINITO, 0);
+      }
+    }
+
+    long[] demanda = new long[n];
+    for (int j=0; j<grupo.size(); j++){
+      Pedido p = grupo.get(j);
+      demanda[red.nodoVencimiento(p)] += p.cantidad;
+      g.agregarArco(s, 2*n + j, p.cantidad, 0);
+      for (String hub : MotorACO.origenesPosibles(p))
+        if (inst.indiceAeropuerto.containsKey(hub)) g.agregarArco(2*n + j, red.nodoFuente(p, hub), FlujoCostoMinimo.INFINITO, 0);
+    }
+    for (int i=0; i<n; i++) if (demanda[i] > 0) g.agregarArco(n + i, t, demanda[i], 0);
+    g.resolver(s, t, total);
+
+    // redondeo sobre el flujo que quedó en vuelos y esperas
+    long[] restoVuelo = new long[red.numArcos], restoEspera = new long[n];
+    for (int a=0; a<red.numArcos; a++) if (arcoVuelo[a] >= 0) restoVuelo[a] = g.flujoEn(arcoVuelo[a]);
+    for (int i=0; i<n; i++) if (arcoEspera[i] >= 0) restoEspera[i] = g.flujoEn(arcoEspera[i]);
+
+    // los subpedidos de un original comparten destino y vencimiento: el grupo se redondea
+    // cuando aparece su primer miembro
+    Set<Integer> vistos = new HashSet<>();
+    for (Pedido p : grupo){
+      int pid = (p.idPedidoOriginal == -1 ? p.id : p.idPedidoOriginal);
+      if (!vistos.add(pid)) continue;
+      List<Pedido> miembros = porOriginal.get(pid);
+      if (!redondearGrupo(red, salientes, restoVuelo, restoEspera, miembros, d, registro, capTotalDiaria, sol))
+        pendientes.add(miembros);
+    }
+  }
+
+  // todo o nada, como MotorACO.insertarGrupo: si un subpedido no redondea o no cabe se
+  // deshacen las reservas del grupo desde su marca y se devuelve su flujo a los arcos
+  private boolean redondearGrupo(RedTiempoExpandida red, int[][] salientes, long[] restoVuelo, long[] restoEspera,
+                                 List<Pedido> miembros, int d, RegistroCapacidad registro, int capTotalDiaria, Solucion sol){
+    int marca = registro.puntoGuardado();
+    List<Ruta> rutas = new ArrayList<>();
+    List<List<Integer>> vuelosUsados = new ArrayList<>(), esperasUsadas = new ArrayList<>();
+    boolean ok = true;
+    for (Pedido p : miembros){
+      List<Integer> vuelos = new ArrayList<>(), esperas = new ArrayList<>();
+      Ruta r = redondear(red, salientes, restoVuelo, restoEspera, p, d, vuelos, esperas);
+      if (r == null || !reservar(r, p, registro, capTotalDiaria)) { ok = false; break; }
+      for (int a : vuelos) restoVuelo[a] -= p.cantidad;
+      for (int i : esperas) restoEspera[i] -= p.cantidad;
+      rutas.add(r); vuelosUsados.add(vuelos); esperasUsadas.add(esperas);
+    }
+    if (!ok){
+      registro.revertirA(marca);
+      for (int k=0; k<rutas.size(); k++){
+        int q = miembros.get(k).cantidad;
+        for (int a : vuelosUsados.get(k)) restoVuelo[a] += q;
+        for (int i : esperasUsadas.get(k)) restoEspera[i] += q;
+      }
+      return false;
+    }
+    registro.confirmar(marca);
+    for (int k=0; k<rutas.size(); k++){
+      sol.rutas.put(miembros.get(k).id, rutas.get(k));
+      sol.subpedidosATiempo++;
+    }
+    return true;
+  }
+
+  // llegada más temprana al destino por arcos con flujo suficiente (los nodos se recorren
+  // en orden de tiempo); null si no llega a tiempo o la ruta rompe las reglas de ruteo.
+  // Deja en vuelos/esperas los arcos usados, para descontarlos si la ruta se reserva.
+  private Ruta redondear(RedTiempoExpandida red, int[][] salientes, long[] restoVuelo, long[] restoEspera,
+                         Pedido p, int d, List<Integer> vuelos, List<Integer> esperas){
+    int n = red.numNodos, q = p.cantidad;
+    int[] padre = new int[n];       // arco de vuelo por el que se llegó (-1 espera, -2 fuente)
+    boolean[] visto = new boolean[n];
+    PriorityQueue<long[]> cola = new PriorityQueue<>(Comparator.comparingLong((long[] x) -> x[0]));
+    for (String hub : MotorACO.origenesPosibles(p)){
+      if (!red.inst.indiceAeropuerto.containsKey(hub)) continue;
+      int u = red.nodoFuente(p, hub);
+      if (!visto[u]) { visto[u] = true; padre[u] = -2; cola.add(new long[]{ red.tiempoNodo[u], u }); }
+    }
+    long limite = p.vencimientoUTC + MINUTOS_CONEXION_MINIMA;
+    int llegada = -1;
+    while (!cola.isEmpty()){
+      int u = (int) cola.poll()[1];
+      if (red.tiempoNodo[u] > limite) break;
+      if (red.aeropuertoNodo[u] == d) { llegada = u; break; }
+      if (red.esperaHaciaSiguiente(u) && restoEspera[u] >= q && !visto[u+1]){
+        visto[u+1] = true; padre[u+1] = -1; cola.add(new long[]{ red.tiempoNodo[u+1], u+1 });
+      }
+      for (int a : salientes[u]){
+        int v = red.hastaArco[a];
+        if (restoVuelo[a] < q || visto[v]) continue;
+        visto[v] = true; padre[v] = a; cola.add(new long[]{ red.tiempoNodo[v], v });
+      }
+    }
+    if (llegada < 0) return null;
+
+    int u = llegada;
+    while (padre[u] != -2){
+      if (padre[u] == -1) esperas.add(--u);
+      else { vuelos.add(padre[u]); u = red.desdeArco[padre[u]]; }
+    }
+    Collections.reverse(vuelos);
+    if (vuelos.size() > MAX_ESCALAS) return null;
+
+    Instancia inst = red.inst;
+    Ruta ruta = new Ruta();
+    ruta.origen = inst.indiceAAeropuerto[red.aeropuertoNodo[u]];
+    int idxOrig = red.aeropuertoNodo[u], contOrig = inst.continenteAeropuerto[idxOrig], contDest = inst.continenteAeropuerto[d];
+    boolean[] visitado = new boolean[inst.indiceAAeropuerto.length];
+    visitado[idxOrig] = true;
+    int actual = idxOrig;
+    long llegadaFinal = p.liberacionUTC;
+    for (int a : vuelos){
+      int sig = inst.indiceAeropuerto.get(red.vueloArco[a].destino);
+      if (visitado[sig]) return null;
+      if (APLICAR_REGLAS_CONTINENTE
+          && !MotorACO.continentePermitido(contOrig, contDest, inst.continenteAeropuerto[actual], inst.continenteAeropuerto[sig])) return null;
+      visitado[sig] = true; actual = sig;
+      ruta.subrutas.add(new SubRuta(red.vueloArco[a], red.salida(a), red.llegada(a), p.cantidad));
+      llegadaFinal = red.llegada(a);
+    }
+    ruta.llegadaFinalUTC = llegadaFinal;
+    ruta.tiempoTotal = Math.max(0, (llegadaFinal - p.liberacionUTC)/60.0);
+    ruta.aTiempo = llegadaFinal <= p.vencimientoUTC;
+    return ruta.aTiempo ? ruta : null;
+  }
+
+  // mismas reservas que MotorACO.insertarGrupo; el almacén incluye la ventana de recojo.
+  // Si no cabe deshace lo suyo; la confirmación queda a cargo del grupo
+  private boolean reservar(Ruta r, Pedido p, RegistroCapacidad registro, int capTotalDiaria){
+    if (!registro.cabeRutaEnAlmacen(r, p.destino, p.cantidad)) return false;
+    int marca = registro.puntoGuardado();
+    for (SubRuta s : r.subrutas){
+      int dia = RegistroCapacidad.indiceDia(s);
+      if (registro.usadoDia(dia) + p.cantidad > capTotalDiaria) { registro.revertirA(marca); return false; }
+      registro.reservarDia(dia, p.cantidad);
+      registro.reservarVueloDia(Claves.claveCapacidadVueloDia(s.vuelo, s.salidaAjustadaUTC), p.cantidad);
+    }
+    registro.reservarRutaEnAlmacen(r, p.destino, p.cantidad);
+    return true;
+  }
+
+  private static int[][] salientesPorNodo(RedTiempoExpandida red){
+    int[] cuenta = new int[red.numNodos];
+    for (int a=0; a<red.numArcos; a++) cuenta[red.desdeArco[a]]++;
+    int[][] out = new int[red.numNodos][];
+    for (int i=0; i<red.numNodos; i++) out[i] = new int[cuenta[i]];
+    for (int a=0; a<red.numArcos; a++){ int u = red.desdeArco[a]; out[u][--cuenta[u]] = a; }
+    return out;
+  }
+}
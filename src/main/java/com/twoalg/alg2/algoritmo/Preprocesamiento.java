@@ -2,8 +2,12 @@ package alg2.algoritmo;
 
 
 import alg2.model.*;
+import alg2.funcaux.Geo;
+import alg2.funcaux.Claves;
 import java.util.*;
 
+import static alg2.config.Parametros.TAMANIO_LISTA_ESTATICA;
+
 public final class Preprocesamiento {
   private Preprocesamiento(){}
 
@@ -50,4 +54,71 @@ public final class Preprocesamiento {
     }
     inst.normalizadorSaltos = hopNorm;
   }
+
+  // Lista estática por (aeropuerto, destino): los vuelos salientes ordenados por la parte
+  // de la heurística que no depende del tiempo (progreso hacia el destino y capacidad).
+  // Solo se guarda cuando el aeropuerto tiene más salidas que el tamaño de la lista.
+  // Usa las tablas de precomputarLotes.
+  public static void precomputarListasCandidatas(Instancia inst){
+    inst.listasCandidatas.clear();
+    for (Map.Entry<String,List<Vuelo>> e : inst.vuelosPorOrigen.entrySet()){
+      List<Vuelo> salidas = e.getValue();
+      if (salidas.size() <= TAMANIO_LISTA_ESTATICA) continue;
+      int capMax = 1;
+      for (Vuelo v : salidas) capMax = Math.max(capMax, v.capacidadMaxima);
+
+      Map<String,LoteVuelos> porDestino = new HashMap<>();
+      for (String destino : inst.aeropuertos.keySet()){
+        if (destino.equals(e.getKey())) continue;
+        int iDest = inst.indiceAeropuerto.get(destino);
+        Map<Vuelo,Double> puntaje = new HashMap<>();
+        for (Vuelo v : salidas){
+          double hProg = inst.progresoHacia[inst.indiceAeropuerto.get(v.destino)][iDest];
+          double hCap = v.capacidadMaxima / (double) capMax;
+          puntaje.put(v, 0.45*hProg + 0.20*hCap);
+        }
+        List<Vuelo> orden = new ArrayList<>(salidas);
+        orden.sort(Comparator.comparingDouble(v -> -puntaje.get(v)));
+        porDestino.put(destino, crearLote(orden.subList(0, TAMANIO_LISTA_ESTATICA), inst));
+      }
+      inst.listasCandidatas.put(e.getKey(), porDestino);
+    }
+  }
+
+  // Tablas por índice de aeropuerto que usa la puntuación en bloque: progreso entre
+  // pares, continente, y las salidas de cada aeropuerto como LoteVuelos. Requiere
+  // los índices de precomputarDistanciasPorSaltos.
+  public static void precomputarLotes(Instancia inst){
+    int n = inst.indiceAAeropuerto.length;
+    inst.progresoHacia = new double[n][n];
+    for (int i=0;i<n;i++)
+      for (int j=0;j<n;j++)
+        inst.progresoHacia[i][j] = Geo.progresoHaciaDestino(inst.indiceAAeropuerto[i], inst.indiceAAeropuerto[j], inst);
+
+    Map<String,Integer> idContinente = new HashMap<>();
+    inst.continenteAeropuerto = new int[n];
+    for (int i=0;i<n;i++){
+      String c = inst.aeropuertos.get(inst.indiceAAeropuerto[i]).continente;
+      inst.continenteAeropuerto[i] = (c == null) ? -1 : idContinente.computeIfAbsent(c, k -> idContinente.size());
+    }
+
+    inst.lotesPorOrigen.clear();
+    for (Map.Entry<String,List<Vuelo>> e : inst.vuelosPorOrigen.entrySet())
+      inst.lotesPorOrigen.put(e.getKey(), crearLote(e.getValue(), inst));
+  }
+
+  static LoteVuelos crearLote(List<Vuelo> vuelos, Instancia inst){
+    LoteVuelos l = new LoteVuelos(vuelos.size());
+    for (int i=0;i<l.tamanio;i++){
+      Vuelo v = vuelos.get(i);
+      l.vuelos[i] = v;
+      l.claves[i] = Claves.claveVuelo(v);
+      l.salidaUTC[i] = v.salidaUTC;
+      l.llegadaUTC[i] = v.llegadaUTC;
+      l.capacidad[i] = v.capacidadMaxima;
+      l.destino[i] = inst.indiceAeropuerto.get(v.destino);
+      l.continenteDestino[i] = inst.continenteAeropuerto[l.destino[i]];
+    }
+    return l;
+  }
 }
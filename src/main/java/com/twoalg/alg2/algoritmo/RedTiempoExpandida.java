@@ -0,0 +1,155 @@
+package alg2.algoritmo;
+
+import alg2.model.*;
+import alg2.funcaux.FlujoMaximo;
+import java.util.*;
+
+import static alg2.config.Parametros.*;
+
+// Red de vuelos expandida en el tiempo sobre el horizonte de los pedidos.
+// Un nodo es (aeropuerto, instante desde el que se puede salir): las salidas de
+// vuelo en el origen, la liberación + conexión en cada hub posible y el vencimiento
+// + conexión en el destino del pedido (así "llegar a tiempo" es alcanzar ese nodo).
+// Las llegadas no tienen nodo propio: desembocan en el primer nodo del destino desde
+// llegada + conexión, que es lo primero que pueden aprovechar. Arcos:
+//  - vuelo-día: de (origen, salida) a ese nodo, con la capacidad del vuelo
+//  - espera: de cada nodo al siguiente del mismo aeropuerto (implícitos); fuera de
+//    los hubs lo que espera ocupa almacén, así que su tope es la capacidad del almacén
+// Relaja escalas, visitas, reglas de continente, tope diario y la ventana de recojo.
+public class RedTiempoExpandida {
+  public final Instancia inst;
+  public final long inicio, fin;
+  private final long tramo;
+  private final boolean controlarAlmacen; // sin él las esperas no tienen tope
+
+  // nodos ordenados por (aeropuerto, tiempo); los de un aeropuerto quedan contiguos
+  public final int numNodos;
+  public final int[] aeropuertoNodo;
+  public final long[] tiempoNodo;
+  private final long[] claves;
+
+  // arcos vuelo-día
+  public final int numArcos;
+  public final Vuelo[] vueloArco;
+  public final int[] diaArco, desdeArco, hastaArco;
+
+  public RedTiempoExpandida(Instancia inst, boolean controlarAlmacen){
+    this.inst = inst;
+    this.controlarAlmacen = controlarAlmacen;
+    long ini = Long.MAX_VALUE, fn = Long.MIN_VALUE;
+    for (Pedido p : inst.pedidos){
+      ini = Math.min(ini, p.liberacionUTC + MINUTOS_CONEXION_MINIMA);
+      fn = Math.max(fn, p.vencimientoUTC + MINUTOS_CONEXION_MINIMA);
+    }
+    if (inst.pedidos.isEmpty()) { ini = 0; fn = 0; }
+    inicio = ini; fin = fn; tramo = fin - inicio + 1;
+
+    // vuelo-día dentro del horizonte (los corrimientos son de días enteros hacia adelante)
+    List<Vuelo> vs = new ArrayList<>(); List<Integer> ds = new ArrayList<>();
+    for (Vuelo v : inst.vuelos){
+      if (indice(v.origen) < 0 || indice(v.destino) < 0) continue;
+      long falta = inicio - v.salidaUTC;
+      int k = falta > 0 ? (int)((falta + 1439) / 1440) : 0;
+      for (; Math.max(v.salidaUTC, v.llegadaUTC + MINUTOS_CONEXION_MINIMA) + 1440L*k <= fin; k++){ vs.add(v); ds.add(k); }
+    }
+    numArcos = vs.size();
+    vueloArco = vs.toArray(new Vuelo[0]);
+    diaArco = new int[numArcos]; desdeArco = new int[numArcos]; hastaArco = new int[numArcos];
+
+    long[] eventos = new long[numArcos + 4*inst.pedidos.size()];
+    int ne = 0;
+    for (int i=0; i<numArcos; i++){
+      diaArco[i] = ds.get(i);
+      eventos[ne++] = clave(indice(vueloArco[i].origen), salida(i));
+    }
+    for (Pedido p : inst.pedidos){
+      int d = indice(p.destino);
+      if (d < 0) continue;
+      eventos[ne++] = clave(d, p.vencimientoUTC + MINUTOS_CONEXION_MINIMA);
+      for (String hub : MotorACO.origenesPosibles(p)){
+        int h = indice(hub);
+        if (h >= 0) eventos[ne++] = clave(h, p.liberacionUTC + MINUTOS_CONEXION_MINIMA);
+      }
+    }
+    Arrays.sort(eventos, 0, ne);
+    int u = 0;
+    for (int i=0; i<ne; i++) if (u == 0 || eventos[i] != eventos[u-1]) eventos[u++] = eventos[i];
+    claves = Arrays.copyOf(eventos, u);
+    numNodos = u;
+    aeropuertoNodo = new int[u]; tiempoNodo = new long[u];
+    for (int i=0; i<u; i++){ aeropuertoNodo[i] = (int)(claves[i] / tramo); tiempoNodo[i] = inicio + claves[i] % tramo; }
+
+    // una llegada sin nodo posterior en su destino no lleva a ningún lado: queda con hasta = -1
+    for (int i=0; i<numArcos; i++){
+      Vuelo v = vueloArco[i];
+      desdeArco[i] = nodo(indice(v.origen), salida(i));
+      int h = Arrays.binarySearch(claves, clave(indice(v.destino), llegada(i) + MINUTOS_CONEXION_MINIMA));
+      if (h < 0) h = -h - 1;   // punto de inserción: el primer nodo posterior
+      hastaArco[i] = (h < numNodos && aeropuertoNodo[h] == indice(v.destino)) ? h : -1;
+    }
+  }
+
+  public long salida(int arco){ return vueloArco[arco].salidaUTC + 1440L*diaArco[arco]; }
+  public long llegada(int arco){ return vueloArco[arco].llegadaUTC + 1440L*diaArco[arco]; }
+
+  // el nodo debe existir (instantes de vuelos y de pedidos de la instancia)
+  public int nodo(int aeropuerto, long tiempo){
+    return Arrays.binarySearch(claves, clave(aeropuerto, tiempo));
+  }
+
+  public int nodoFuente(Pedido p, String hub){ return nodo(indice(hub), p.liberacionUTC + MINUTOS_CONEXION_MINIMA); }
+  public int nodoVencimiento(Pedido p){ return nodo(indice(p.destino), p.vencimientoUTC + MINUTOS_CONEXION_MINIMA); }
+
+  // hay arco de espera de i a i+1
+  public boolean esperaHaciaSiguiente(int i){
+    return i+1 < numNodos && aeropuertoNodo[i] == aeropuertoNodo[i+1];
+  }
+
+  // tope del arco de espera que sale del nodo i (ver esperaHaciaSiguiente)
+  public long topeEspera(int i){
+    Aeropuerto a = inst.aeropuertos.get(inst.indiceAAeropuerto[aeropuertoNodo[i]]);
+    if (!controlarAlmacen || a == null || a.esSedeExportadora) return FlujoMaximo.INFINITO;
+    return a.capacidadMaxima;
+  }
+
+  // Cota superior de la cantidad entregable a tiempo: flujo máximo desde los hubs
+  // (cada pedido ofrece su cantidad en los hubs desde los que puede salir) hasta los
+  // nodos de vencimiento (cada uno absorbe la cantidad de los pedidos que vencen ahí).
+  // Lo que llega a un destino de pedidos pasa a una cadena gemela "entregado", que
+  // espera sin ocupar almacén hasta su vencimiento. Mezclar las mercancías solo puede
+  // agrandar el flujo, así que la cota es válida.
+  public long cotaATiempo(){
+    List<Pedido> pedidos = inst.pedidos;
+    int n = numNodos, s = 2*n + pedidos.size(), t = s + 1;
+    FlujoMaximo red = new FlujoMaximo(t + 1);
+    for (int i=0; i<numArcos; i++)
+      if (hastaArco[i] >= 0) red.agregarArco(desdeArco[i], hastaArco[i], vueloArco[i].capacidadMaxima);
+    for (int i=0; i<n; i++) if (esperaHaciaSiguiente(i)) red.agregarArco(i, i+1, topeEspera(i));
+
+    boolean[] esDestino = new boolean[inst.indiceAAeropuerto.length];
+    long[] demanda = new long[n];
+    for (int j=0; j<pedidos.size(); j++){
+      Pedido p = pedidos.get(j);
+      if (indice(p.destino) < 0) continue;
+      esDestino[indice(p.destino)] = true;
+      demanda[nodoVencimiento(p)] += p.cantidad;
+      red.agregarArco(s, 2*n + j, p.cantidad);
+      for (String hub : MotorACO.origenesPosibles(p))
+        if (indice(hub) >= 0) red.agregarArco(2*n + j, nodoFuente(p, hub), FlujoMaximo.INFINITO);
+    }
+    for (int i=0; i<n; i++){
+      if (!esDestino[aeropuertoNodo[i]]) continue;
+      red.agregarArco(i, n + i, FlujoMaximo.INFINITO);
+      if (esperaHaciaSiguiente(i)) red.agregarArco(n + i, n + i + 1, FlujoMaximo.INFINITO);
+      if (demanda[i] > 0) red.agregarArco(n + i, t, demanda[i]);
+    }
+    return red.maximo(s, t);
+  }
+
+  private int indice(String icao){
+    Integer i = inst.indiceAeropuerto.get(icao);
+    return i == null ? -1 : i;
+  }
+
+  private long clave(int aeropuerto, long tiempo){ return aeropuerto * tramo + (tiempo - inicio); }
+}
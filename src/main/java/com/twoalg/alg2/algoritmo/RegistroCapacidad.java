@@ -0,0 +1,161 @@
+package alg2.algoritmo;
+
+import alg2.model.*;
+import alg2.config.Parametros;
+import alg2.funcaux.ArbolMaximos;
+
+import java.util.*;
+
+// Libro de capacidad usada por vuelo-día y por día, con puntos de guardado.
+// Cada reserva deja su valor previo en un registro de deshacer: un grupo de
+// subpedidos reserva directamente y, si falla, se revierte hasta su marca.
+// Construido con la instancia y controlarAlmacen lleva además la ocupación de
+// almacén por aeropuerto y franja horaria: un árbol de segmentos por aeropuerto
+// con suma y máximo en rango, y las reservas entran al mismo registro de deshacer.
+public class RegistroCapacidad {
+
+  private static final class Cambio {
+    final String claveVueloDia; // null => cambio en el acumulado diario o en almacén
+    final int dia;
+    final Integer previo;       // null => la clave no existía
+    final ArbolMaximos almacen; // != null => se sumó cantidad en [dia, hasta]
+    final int hasta, cantidad;
+    Cambio(String claveVueloDia, int dia, Integer previo){ this(claveVueloDia, dia, previo, null, 0, 0); }
+    Cambio(String claveVueloDia, int dia, Integer previo, ArbolMaximos almacen, int hasta, int cantidad){
+      this.claveVueloDia=claveVueloDia; this.dia=dia; this.previo=previo;
+      this.almacen=almacen; this.hasta=hasta; this.cantidad=cantidad;
+    }
+  }
+
+  private final Map<String,Integer> usoVueloDia = new HashMap<>();
+  private final Map<Integer,Integer> usoDia = new HashMap<>();
+  private final Map<String,Integer> vistaVueloDia = Collections.unmodifiableMap(usoVueloDia);
+  private final ArrayList<Cambio> deshacer = new ArrayList<>();
+
+  // almacén: null si no se controla
+  private final Instancia inst;
+  private final long inicioUTC;
+  private final int numFranjas;
+  private final Map<String,ArbolMaximos> almacenes = new HashMap<>();
+
+  public RegistroCapacidad(){ this(null, false); }
+
+  public RegistroCapacidad(Instancia inst, boolean controlarAlmacen){
+    if (inst == null || !controlarAlmacen || inst.pedidos.isEmpty()) {
+      this.inst = null; this.inicioUTC = 0; this.numFranjas = 0;
+      return;
+    }
+    long desde = Long.MAX_VALUE, hasta = Long.MIN_VALUE;
+    for (Pedido p : inst.pedidos) { desde = Math.min(desde, p.liberacionUTC); hasta = Math.max(hasta, p.vencimientoUTC); }
+    hasta += Parametros.TOLERANCIA_RETRASO_MINUTOS + Parametros.VENTANA_RECOJO_MINUTOS;
+    this.inst = inst;
+    this.inicioUTC = desde;
+    this.numFranjas = (int)((hasta - desde) / Parametros.MINUTOS_POR_FRANJA) + 2;
+  }
+
+  // vista de solo lectura (clave vuelo-día -> usado) para el constructor de rutas
+  public Map<String,Integer> vueloDia(){ return vistaVueloDia; }
+
+  public int usadoVueloDia(String claveDia){ return usoVueloDia.getOrDefault(claveDia, 0); }
+  public int usadoDia(int dia){ return usoDia.getOrDefault(dia, 0); }
+
+  // suma (o resta, si es negativa) la cantidad; devuelve el nuevo uso
+  public int reservarVueloDia(String claveDia, int cantidad){
+    Integer previo = usoVueloDia.get(claveDia);
+    int nuevo = (previo == null ? 0 : previo) + cantidad;
+    usoVueloDia.put(claveDia, nuevo);
+    deshacer.add(new Cambio(claveDia, 0, previo));
+    return nuevo;
+  }
+
+  public int reservarDia(int dia, int cantidad){
+    Integer previo = usoDia.get(dia);
+    int nuevo = (previo == null ? 0 : previo) + cantidad;
+    usoDia.put(dia, nuevo);
+    deshacer.add(new Cambio(null, dia, previo));
+    return nuevo;
+  }
+
+  public int puntoGuardado(){ return deshacer.size(); }
+
+  // deshace, en orden inverso, todo lo reservado después de la marca
+  public void revertirA(int marca){
+    for (int i = deshacer.size()-1; i >= marca; i--){
+      Cambio c = deshacer.remove(i);
+      if (c.almacen != null){
+        c.almacen.sumar(c.dia, c.hasta, -c.cantidad);
+      } else if (c.claveVueloDia != null){
+        if (c.previo == null) usoVueloDia.remove(c.claveVueloDia); else usoVueloDia.put(c.claveVueloDia, c.previo);
+      } else {
+        if (c.previo == null) usoDia.remove(c.dia); else usoDia.put(c.dia, c.previo);
+      }
+    }
+  }
+
+  // acepta lo reservado desde la marca; en la marca exterior (0) se vacía el registro
+  public void confirmar(int marca){
+    if (marca == 0) deshacer.clear();
+  }
+
+  public boolean controlaAlmacen(){ return inst != null; }
+
+  // ¿cabe la cantidad en el almacén del aeropuerto durante [desdeUTC, hastaUTC)?
+  // Los hubs no tienen tope de almacén.
+  public boolean cabeEnAlmacen(String aeropuerto, long desdeUTC, long hastaUTC, int cantidad){
+    if (inst == null || hastaUTC <= desdeUTC) return true;
+    Aeropuerto a = inst.aeropuertos.get(aeropuerto);
+    if (a == null || a.esSedeExportadora) return true;
+    ArbolMaximos arbol = almacenes.get(aeropuerto);
+    int usado = (arbol == null) ? 0 : arbol.maximo(franja(desdeUTC), franja(hastaUTC - 1));
+    return usado + cantidad <= a.capacidadMaxima;
+  }
+
+  // lo que queda libre en el almacén durante todo [desdeUTC, hastaUTC); sin tope, MAX_VALUE
+  public int libreEnAlmacen(String aeropuerto, long desdeUTC, long hastaUTC){
+    if (inst == null || hastaUTC <= desdeUTC) return Integer.MAX_VALUE;
+    Aeropuerto a = inst.aeropuertos.get(aeropuerto);
+    if (a == null || a.esSedeExportadora) return Integer.MAX_VALUE;
+    ArbolMaximos arbol = almacenes.get(aeropuerto);
+    int usado = (arbol == null) ? 0 : arbol.maximo(franja(desdeUTC), franja(hastaUTC - 1));
+    return Math.max(0, a.capacidadMaxima - usado);
+  }
+
+  public void reservarAlmacen(String aeropuerto, long desdeUTC, long hastaUTC, int cantidad){
+    if (inst == null || hastaUTC <= desdeUTC) return;
+    Aeropuerto a = inst.aeropuertos.get(aeropuerto);
+    if (a == null || a.esSedeExportadora) return;
+    ArbolMaximos arbol = almacenes.computeIfAbsent(aeropuerto, k -> new ArbolMaximos(numFranjas));
+    int l = franja(desdeUTC), r = franja(hastaUTC - 1);
+    arbol.sumar(l, r, cantidad);
+    deshacer.add(new Cambio(null, l, null, arbol, r, cantidad));
+  }
+
+  // estadías de una ruta: esperas en las escalas y la ventana de recojo en destino
+  public boolean cabeRutaEnAlmacen(Ruta r, String destino, int cantidad){
+    if (inst == null) return true;
+    for (int i = 1; i < r.subrutas.size(); i++) {
+      SubRuta ant = r.subrutas.get(i-1), s = r.subrutas.get(i);
+      if (!cabeEnAlmacen(s.vuelo.origen, ant.llegadaAjustadaUTC, s.salidaAjustadaUTC, cantidad)) return false;
+    }
+    return cabeEnAlmacen(destino, r.llegadaFinalUTC, r.llegadaFinalUTC + Parametros.VENTANA_RECOJO_MINUTOS, cantidad);
+  }
+
+  // cantidad negativa libera
+  public void reservarRutaEnAlmacen(Ruta r, String destino, int cantidad){
+    if (inst == null) return;
+    for (int i = 1; i < r.subrutas.size(); i++) {
+      SubRuta ant = r.subrutas.get(i-1), s = r.subrutas.get(i);
+      reservarAlmacen(s.vuelo.origen, ant.llegadaAjustadaUTC, s.salidaAjustadaUTC, cantidad);
+    }
+    reservarAlmacen(destino, r.llegadaFinalUTC, r.llegadaFinalUTC + Parametros.VENTANA_RECOJO_MINUTOS, cantidad);
+  }
+
+  private int franja(long utc){
+    long f = (utc - inicioUTC) / Parametros.MINUTOS_POR_FRANJA;
+    return (int)Math.max(0, Math.min(numFranjas - 1, f));
+  }
+
+  public static int indiceDia(SubRuta s){
+    return (int)Math.floorDiv(s.salidaAjustadaUTC - s.vuelo.salidaUTC, 1440L);
+  }
+}
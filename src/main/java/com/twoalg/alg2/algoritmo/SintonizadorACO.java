@@ -0,0 +1,194 @@
+package alg2.algoritmo;
+
+import alg2.model.*;
+import alg2.config.ConfiguracionACO;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+// Carrera (F-Race) de configuraciones ACO. Cada bloque es un par (instancia, semilla)
+// en el que corren en paralelo todas las configuraciones vivas; el costo es el tiempo
+// de pared hasta alcanzar la meta de la instancia (si no la alcanza: PENALIZACION * límite).
+// Tras BLOQUES_MINIMOS bloques se aplica Friedman y se eliminan las configuraciones
+// cuyo rango queda, según el post-hoc de Conover, peor que el de la mejor.
+public class SintonizadorACO {
+
+  public static final int BLOQUES_MINIMOS = 4;
+  public static final double PENALIZACION = 10.0;
+  public static final double ALFA = 0.05;
+
+  public static class Resultado {
+    public ConfiguracionACO mejor;
+    public double tiempoMedioMs;
+    public int bloquesCorridos;
+    public List<ConfiguracionACO> sobrevivientes = new ArrayList<>();
+    public List<Integer> vivosPorBloque = new ArrayList<>();  // configuraciones vivas tras cada bloque
+  }
+
+  private final List<Instancia> instancias;
+  private final double[] metas;      // valorObjetivo a alcanzar por instancia
+  private final long limiteMs;       // corte por corrida
+  private final int hilos;
+  private final long semilla;
+
+  public SintonizadorACO(List<Instancia> instancias, double[] metas, long limiteMs, int hilos, long semilla){
+    this.instancias = instancias;
+    this.metas = metas;
+    this.limiteMs = limiteMs;
+    this.hilos = hilos;
+    this.semilla = semilla;
+  }
+
+  public Resultado competir(List<ConfiguracionACO> candidatos, int maxBloques) throws InterruptedException, ExecutionException {
+    List<Integer> vivos = new ArrayList<>();
+    for (int i = 0; i < candidatos.size(); i++) vivos.add(i);
+    // costos[b][c] por bloque y candidato (NaN si el candidato ya no corría)
+    List<double[]> costos = new ArrayList<>();
+    Resultado res = new Resultado();
+
+    ExecutorService pool = Executors.newFixedThreadPool(hilos);
+    try {
+      int b = 0;
+      for (; b < maxBloques && vivos.size() > 1; b++) {
+        Instancia inst = instancias.get(b % instancias.size());
+        double meta = metas[b % instancias.size()];
+        long semillaBloque = semilla + b;
+
+        double[] fila = new double[candidatos.size()];
+        Arrays.fill(fila, Double.NaN);
+        Map<Integer,Future<Double>> futuros = new LinkedHashMap<>();
+        for (int c : vivos) {
+          ConfiguracionACO cfg = candidatos.get(c);
+          futuros.put(c, pool.submit(() -> costoCorrida(cfg, inst, meta, semillaBloque)));
+        }
+        for (Map.Entry<Integer,Future<Double>> e : futuros.entrySet()) fila[e.getKey()] = e.getValue().get();
+        costos.add(fila);
+
+        if (costos.size() >= BLOQUES_MINIMOS) vivos = eliminarPerdedores(vivos, costos);
+        res.vivosPorBloque.add(vivos.size());
+      }
+
+      res.bloquesCorridos = b;
+      int mejor = -1; double mejorMedio = Double.POSITIVE_INFINITY;
+      for (int c : vivos) {
+        double suma = 0; int n = 0;
+        for (double[] fila : costos) if (!Double.isNaN(fila[c])) { suma += fila[c]; n++; }
+        double medio = (n == 0) ? Double.POSITIVE_INFINITY : suma / n;
+        if (mejor < 0 || medio < mejorMedio) { mejor = c; mejorMedio = medio; }
+        res.sobrevivientes.add(candidatos.get(c));
+      }
+      res.mejor = candidatos.get(mejor);
+      res.tiempoMedioMs = mejorMedio;
+      return res;
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  private double costoCorrida(ConfiguracionACO cfg, Instancia inst, double meta, long semillaCorrida){
+    MotorACO motor = new MotorACO(cfg, semillaCorrida);
+    long t0 = System.nanoTime();
+    Solucion s = motor.ejecutarACO(inst, meta, limiteMs);
+    double ms = (System.nanoTime() - t0) / 1e6;
+    return (s.valorObjetivo >= meta) ? ms : PENALIZACION * limiteMs;
+  }
+
+  // Friedman sobre los bloques donde corrieron todos los vivos + post-hoc de Conover frente al mejor rango
+  private List<Integer> eliminarPerdedores(List<Integer> vivos, List<double[]> costos){
+    int k = vivos.size();
+    List<double[]> rangos = new ArrayList<>();
+    for (double[] fila : costos) {
+      double[] v = new double[k];
+      boolean completo = true;
+      for (int j = 0; j < k; j++) { v[j] = fila[vivos.get(j)]; if (Double.isNaN(v[j])) completo = false; }
+      if (completo) rangos.add(rangos(v));
+    }
+    int n = rangos.size();
+    if (n < 2 || k < 2) return vivos;
+
+    double[] R = new double[k];
+    double A = 0;
+    for (double[] r : rangos) for (int j = 0; j < k; j++) { R[j] += r[j]; A += r[j]*r[j]; }
+    double C = n * k * (k+1) * (k+1) / 4.0;
+    double sumR2 = 0; for (double x : R) sumR2 += x*x;
+    if (A - C <= 1e-12) return vivos; // todos empatados
+
+    double T = (k-1) * (sumR2 - n*C) / (A - C);
+    if (T <= cuantilChiCuadrado(1 - ALFA, k-1)) return vivos;
+
+    int gl = (n-1) * (k-1);
+    double dif = cuantilT(1 - ALFA/2, gl) * Math.sqrt(2.0 * (n*A - sumR2) / gl);
+    int mejor = 0;
+    for (int j = 1; j < k; j++) if (R[j] < R[mejor]) mejor = j;
+
+    List<Integer> quedan = new ArrayList<>();
+    for (int j = 0; j < k; j++) if (R[j] - R[mejor] <= dif) quedan.add(vivos.get(j));
+    return quedan;
+  }
+
+  // rangos 1..k con promedio en empates
+  static double[] rangos(double[] v){
+    int k = v.length;
+    Integer[] idx = new Integer[k];
+    for (int i = 0; i < k; i++) idx[i] = i;
+    Arrays.sort(idx, Comparator.comparingDouble(i -> v[i]));
+    double[] r = new double[k];
+    for (int i = 0; i < k; ) {
+      int j = i;
+      while (j + 1 < k && v[idx[j+1]] == v[idx[i]]) j++;
+      double medio = (i + j) / 2.0 + 1;
+      for (int t = i; t <= j; t++) r[idx[t]] = medio;
+      i = j + 1;
+    }
+    return r;
+  }
+
+  // Wilson-Hilferty
+  static double cuantilChiCuadrado(double p, int gl){
+    double z = cuantilNormal(p);
+    double a = 2.0 / (9.0 * gl);
+    double x = 1 - a + z * Math.sqrt(a);
+    return gl * x * x * x;
+  }
+
+  // expansión de Cornish-Fisher sobre la normal
+  static double cuantilT(double p, int gl){
+    double z = cuantilNormal(p);
+    double z3 = z*z*z, z5 = z3*z*z;
+    return z + (z3 + z) / (4.0*gl) + (5*z5 + 16*z3 + 3*z) / (96.0*gl*gl);
+  }
+
+  // aproximación racional de Acklam
+  static double cuantilNormal(double p){
+    double[] a = {-3.969683028665376e+01, 2.209460984245205e+02, -2.759285104469687e+02, 1.383577518672690e+02, -3.066479806614716e+01, 2.506628277459239e+00};
+    double[] b = {-5.447609879822406e+01, 1.615858368580409e+02, -1.556989798598866e+02, 6.680131188771972e+01, -1.328068155288572e+01};
+    double[] c = {-7.784894002430293e-03, -3.223964580411365e-01, -2.400758277161838e+00, -2.549732539343734e+00, 4.374664141464968e+00, 2.938163982698783e+00};
+    double[] d = {7.784695709041462e-03, 3.224671290700398e-01, 2.445134137142996e+00, 3.754408661907416e+00};
+    double q, r;
+    if (p < 0.02425) {
+      q = Math.sqrt(-2*Math.log(p));
+      return (((((c[0]*q+c[1])*q+c[2])*q+c[3])*q+c[4])*q+c[5]) / ((((d[0]*q+d[1])*q+d[2])*q+d[3])*q+1);
+    } else if (p > 1 - 0.02425) {
+      q = Math.sqrt(-2*Math.log(1-p));
+      return -(((((c[0]*q+c[1])*q+c[2])*q+c[3])*q+c[4])*q+c[5]) / ((((d[0]*q+d[1])*q+d[2])*q+d[3])*q+1);
+    }
+    q = p - 0.5; r = q*q;
+    return (((((a[0]*r+a[1])*r+a[2])*r+a[3])*r+a[4])*r+a[5])*q / (((((b[0]*r+b[1])*r+b[2])*r+b[3])*r+b[4])*r+1);
+  }
+
+  // la base más n-1 muestras uniformes en rangos razonables de los parámetros a sintonizar
+  public static List<ConfiguracionACO> generarCandidatos(ConfiguracionACO base, int n, Random rnd){
+    List<ConfiguracionACO> out = new ArrayList<>(n);
+    out.add(base);
+    for (int i = 1; i < n; i++) {
+      out.add(base
+        .conPesoFeromona(0.5 + 2.5 * rnd.nextDouble())
+        .conPesoHeuristica(1.0 + 7.0 * rnd.nextDouble())
+        .conTasaEvaporacionGlobal(0.02 + 0.28 * rnd.nextDouble())
+        .conProbabilidadExplotar(0.6 * rnd.nextDouble())
+        .conNumHormigas(10 + rnd.nextInt(141))
+        .conMaxIteraciones(50 + rnd.nextInt(251)));
+    }
+    return out;
+  }
+}
@@ -0,0 +1,79 @@
+package alg2.config;
+
+// Copia inmutable de los parámetros ACO de una corrida. Parametros sigue siendo
+// el valor por defecto; cada MotorACO trabaja con su propia configuración.
+public final class ConfiguracionACO {
+  public final int numHormigas;
+  public final int maxIteraciones;
+
+  public final double pesoFeromona;
+  public final double pesoHeuristica;
+  public final double tasaEvaporacionGlobal;
+  public final double tasaActualizacionLocal;
+  public final double feromonaInicial;
+  public final double intensidadRefuerzo;
+  public final double fraccionRefuerzoElite;
+  public final double probabilidadExplotar;
+
+  public final double feromonaMin;
+  public final double feromonaMax;
+
+  public final int anchoHaz; // > 0: construcción Beam-ACO con ese ancho
+  public final double toleranciaBrecha; // corte por brecha con la cota de flujo; negativo = sin cota
+  public final long limiteBusquedaLocalMs; // presupuesto de la búsqueda local (0 = desactivada)
+  public final boolean controlarAlmacen; // el registro de capacidad lleva los almacenes por franja
+
+  public ConfiguracionACO(int numHormigas, int maxIteraciones,
+                          double pesoFeromona, double pesoHeuristica,
+                          double tasaEvaporacionGlobal, double tasaActualizacionLocal,
+                          double feromonaInicial, double intensidadRefuerzo,
+                          double fraccionRefuerzoElite, double probabilidadExplotar,
+                          double feromonaMin, double feromonaMax, int anchoHaz,
+                          double toleranciaBrecha, long limiteBusquedaLocalMs, boolean controlarAlmacen){
+    this.numHormigas = numHormigas;
+    this.maxIteraciones = maxIteraciones;
+    this.pesoFeromona = pesoFeromona;
+    this.pesoHeuristica = pesoHeuristica;
+    this.tasaEvaporacionGlobal = tasaEvaporacionGlobal;
+    this.tasaActualizacionLocal = tasaActualizacionLocal;
+    this.feromonaInicial = feromonaInicial;
+    this.intensidadRefuerzo = intensidadRefuerzo;
+    this.fraccionRefuerzoElite = fraccionRefuerzoElite;
+    this.probabilidadExplotar = probabilidadExplotar;
+    this.feromonaMin = feromonaMin;
+    this.feromonaMax = feromonaMax;
+    this.anchoHaz = anchoHaz;
+    this.toleranciaBrecha = toleranciaBrecha;
+    this.limiteBusquedaLocalMs = limiteBusquedaLocalMs;
+    this.controlarAlmacen = controlarAlmacen;
+  }
+
+  // foto de los valores actuales de Parametros
+  public static ConfiguracionACO desdeParametros(){
+    return new ConfiguracionACO(
+      Parametros.NUM_HORMIGAS, Parametros.MAX_ITERACIONES,
+      Parametros.PESO_FEROMONA, Parametros.PESO_HEURISTICA,
+      Parametros.TASA_EVAPORACION_GLOBAL, Parametros.TASA_ACTUALIZACION_LOCAL,
+      Parametros.FEROMONA_INICIAL, Parametros.INTENSIDAD_REFUERZO,
+      Parametros.FRACCION_REFUERZO_ELITE, Parametros.PROBABILIDAD_EXPLOTAR,
+      Parametros.FEROMONA_MIN, Parametros.FEROMONA_MAX, Parametros.ANCHO_HAZ,
+      Parametros.TOLERANCIA_BRECHA, Parametros.LIMITE_BUSQUEDA_LOCAL_MS, Parametros.CONTROLAR_ALMACEN);
+  }
+
+  public ConfiguracionACO conNumHormigas(int v){ return new ConfiguracionACO(v, maxIteraciones, pesoFeromona, pesoHeuristica, tasaEvaporacionGlobal, tasaActualizacionLocal, feromonaInicial, intensidadRefuerzo, fraccionRefuerzoElite, probabilidadExplotar, feromonaMin, feromonaMax, anchoHaz, toleranciaBrecha, limiteBusquedaLocalMs, controlarAlmacen); }
+  public ConfiguracionACO conMaxIteraciones(int v){ return new ConfiguracionACO(numHormigas, v, pesoFeromona, pesoHeuristica, tasaEvaporacionGlobal, tasaActualizacionLocal, feromonaInicial, intensidadRefuerzo, fraccionRefuerzoElite, probabilidadExplotar, feromonaMin, feromonaMax, anchoHaz, toleranciaBrecha, limiteBusquedaLocalMs, controlarAlmacen); }
+  public ConfiguracionACO conPesoFeromona(double v){ return new ConfiguracionACO(numHormigas, maxIteraciones, v, pesoHeuristica, tasaEvaporacionGlobal, tasaActualizacionLocal, feromonaInicial, intensidadRefuerzo, fraccionRefuerzoElite, probabilidadExplotar, feromonaMin, feromonaMax, anchoHaz, toleranciaBrecha, limiteBusquedaLocalMs, controlarAlmacen); }
+  public ConfiguracionACO conPesoHeuristica(double v){ return new ConfiguracionACO(numHormigas, maxIteraciones, pesoFeromona, v, tasaEvaporacionGlobal, tasaActualizacionLocal, feromonaInicial, intensidadRefuerzo, fraccionRefuerzoElite, probabilidadExplotar, feromonaMin, feromonaMax, anchoHaz, toleranciaBrecha, limiteBusquedaLocalMs, controlarAlmacen); }
+  public ConfiguracionACO conTasaEvaporacionGlobal(double v){ return new ConfiguracionACO(numHormigas, maxIteraciones, pesoFeromona, pesoHeuristica, v, tasaActualizacionLocal, feromonaInicial, intensidadRefuerzo, fraccionRefuerzoElite, probabilidadExplotar, feromonaMin, feromonaMax, anchoHaz, toleranciaBrecha, limiteBusquedaLocalMs, controlarAlmacen); }
+  public ConfiguracionACO conProbabilidadExplotar(double v){ return new ConfiguracionACO(numHormigas, maxIteraciones, pesoFeromona, pesoHeuristica, tasaEvaporacionGlobal, tasaActualizacionLocal, feromonaInicial, intensidadRefuerzo, fraccionRefuerzoElite, v, feromonaMin, feromonaMax, anchoHaz, toleranciaBrecha, limiteBusquedaLocalMs, controlarAlmacen); }
+  public ConfiguracionACO conAnchoHaz(int v){ return new ConfiguracionACO(numHormigas, maxIteraciones, pesoFeromona, pesoHeuristica, tasaEvaporacionGlobal, tasaActualizacionLocal, feromonaInicial, intensidadRefuerzo, fraccionRefuerzoElite, probabilidadExplotar, feromonaMin, feromonaMax, v, toleranciaBrecha, limiteBusquedaLocalMs, controlarAlmacen); }
+  public ConfiguracionACO conToleranciaBrecha(double v){ return new ConfiguracionACO(numHormigas, maxIteraciones, pesoFeromona, pesoHeuristica, tasaEvaporacionGlobal, tasaActualizacionLocal, feromonaInicial, intensidadRefuerzo, fraccionRefuerzoElite, probabilidadExplotar, feromonaMin, feromonaMax, anchoHaz, v, limiteBusquedaLocalMs, controlarAlmacen); }
+  public ConfiguracionACO conLimiteBusquedaLocalMs(long v){ return new ConfiguracionACO(numHormigas, maxIteraciones, pesoFeromona, pesoHeuristica, tasaEvaporacionGlobal, tasaActualizacionLocal, feromonaInicial, intensidadRefuerzo, fraccionRefuerzoElite, probabilidadExplotar, feromonaMin, feromonaMax, anchoHaz, toleranciaBrecha, v, controlarAlmacen); }
+  public ConfiguracionACO conControlarAlmacen(boolean v){ return new ConfiguracionACO(numHormigas, maxIteraciones, pesoFeromona, pesoHeuristica, tasaEvaporacionGlobal, tasaActualizacionLocal, feromonaInicial, intensidadRefuerzo, fraccionRefuerzoElite, probabilidadExplotar, feromonaMin, feromonaMax, anchoHaz, toleranciaBrecha, limiteBusquedaLocalMs, v); }
+
+  @Override public String toString(){
+    return String.format(java.util.Locale.ROOT,
+      "hormigas=%d iter=%d alfa=%.3f beta=%.3f rho=%.3f q0=%.3f haz=%d",
+      numHormigas, maxIteraciones, pesoFeromona, pesoHeuristica, tasaEvaporacionGlobal, probabilidadExplotar, anchoHaz);
+  }
+}
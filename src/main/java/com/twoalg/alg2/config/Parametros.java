@@ -24,10 +24,18 @@ public final class Parametros {
   public static double INTENSIDAD_REFUERZO = 1.5;
   public static double FRACCION_REFUERZO_ELITE = 0.35;
   public static double PROBABILIDAD_EXPLOTAR = 0.17;
+  public static int ANCHO_HAZ = 0; // 0 = caminata de una hormiga; > 0 = Beam-ACO
 
   public static double FEROMONA_MIN = 1e-6;
   public static double FEROMONA_MAX = 10.0;
 
+  // Búsqueda local sobre la mejor solución del ACO (0 = desactivada)
+  public static long LIMITE_BUSQUEDA_LOCAL_MS = 300;
+
+  // Corte por brecha: ejecutarACO para cuando la mejor solución queda a esta fracción
+  // de la cota de flujo máximo (RedTiempoExpandida); negativo = no calcular la cota
+  public static double TOLERANCIA_BRECHA = 0.0;
+
   // Restricciones
   public static final int MAX_ESCALAS = 4;
   public static final int MAX_VISITAS_POR_AEROPUERTO = 1;
@@ -35,12 +43,24 @@ public final class Parametros {
   public static final boolean EVITAR_RETROCESO = true;
   public static final boolean APLICAR_REGLAS_CONTINENTE = true;
 
+  // Almacenes (los hubs no tienen tope)
+  public static boolean CONTROLAR_ALMACEN = true;
+  public static final int MINUTOS_POR_FRANJA = 60;
+  public static final int VENTANA_RECOJO_MINUTOS = 120;
+
   // SLA / split
   public static final int TAM_MAX_SUBPEDIDO = 250;
   public static final int TOLERANCIA_RETRASO_MINUTOS = 90;
 
   // Candidatos
   public static final int TAMANIO_LISTA_CANDIDATOS = 8;
+  public static final int TAMANIO_LISTA_ESTATICA = 24;
+
+  // Robustez ante retrasos (EvaluadorRobustez): cada vuelo-día sale tarde con esta
+  // probabilidad, con un retraso exponencial de esta media
+  public static double PROBABILIDAD_RETRASO_VUELO = 0.20;
+  public static double RETRASO_MEDIO_MINUTOS = 45.0;
+  public static int ESCENARIOS_ROBUSTEZ = 10_000;
 
   // Analítica
   public static final int SLACK_CRITICO_MINUTOS = 120;
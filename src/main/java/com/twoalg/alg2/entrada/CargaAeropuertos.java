@@ -26,7 +26,7 @@ public class CargaAeropuertos {
         a.ciudad = m.group(2).trim().replaceAll("\\s+", " ");
         a.pais   = m.group(3).trim().replaceAll("\\s+", " ");
         a.desfaseGMT = Integer.parseInt(m.group(4).trim());
-        a.capacidadMaxima = 900_000_000;
+        a.capacidadMaxima = Integer.parseInt(m.group(5).trim());
         a.capacidadUsada = 0;
         a.esSedeExportadora = Parametros.CODIGOS_HUBS.contains(a.idAeropuerto);
         a.continente = continente;
@@ -0,0 +1,34 @@
+package alg2.entrada;
+
+import alg2.model.*;
+import alg2.algoritmo.PedidoSplitter;
+import alg2.algoritmo.Preprocesamiento;
+
+import java.nio.file.*; import java.io.*; import java.time.*;
+import java.util.*;
+
+public class CargaInstancia {
+  // aeropuertos + vuelos + pedidos, ya divididos en subpedidos y con distancias precalculadas
+  public static Instancia cargar(Path archivoAeropuertos, Path archivoVuelos, Path archivoPedidos,
+                                 LocalDate ancla, Random azar) throws IOException {
+    Instancia inst = new Instancia();
+    inst.fechaAncla = ancla;
+    inst.diasMes = ancla.lengthOfMonth();
+
+    inst.aeropuertos = CargaAeropuertos.cargar(archivoAeropuertos);
+    inst.vuelos = CargaVuelos.cargar(archivoVuelos, inst.aeropuertos, ancla);
+
+    for (Vuelo f : inst.vuelos)
+      inst.vuelosPorOrigen.computeIfAbsent(f.origen, k -> new ArrayList<>()).add(f);
+    for (java.util.List<Vuelo> lst : inst.vuelosPorOrigen.values())
+      lst.sort(java.util.Comparator.comparingLong(v -> v.salidaUTC));
+
+    Preprocesamiento.precomputarDistanciasPorSaltos(inst);
+    Preprocesamiento.precomputarLotes(inst);
+    Preprocesamiento.precomputarListasCandidatas(inst);
+
+    java.util.List<Pedido> pedidosOriginales = CargaPedidos.cargar(archivoPedidos, inst, ancla, azar);
+    inst.pedidos = PedidoSplitter.dividirPedidosEnSubpedidos(pedidosOriginales, inst, 100000);
+    return inst;
+  }
+}
@@ -0,0 +1,49 @@
+package alg2.funcaux;
+
+// Árbol de segmentos sobre n posiciones con suma en rango y máximo en rango,
+// ambas en O(log n) (propagación perezosa). Los valores arrancan en 0.
+public final class ArbolMaximos {
+  private final int n;
+  private final int[] max;
+  private final int[] pendiente;
+
+  public ArbolMaximos(int n){
+    this.n = n;
+    int tam = 1; while (tam < n) tam <<= 1;
+    max = new int[2 * tam];
+    pendiente = new int[2 * tam];
+  }
+
+  public int tamanio(){ return n; }
+
+  // suma v en [desde, hasta] (inclusive)
+  public void sumar(int desde, int hasta, int v){
+    if (desde > hasta) return;
+    sumar(1, 0, n - 1, desde, hasta, v);
+  }
+
+  // máximo en [desde, hasta] (inclusive); 0 si el rango es vacío
+  public int maximo(int desde, int hasta){
+    if (desde > hasta) return 0;
+    return maximo(1, 0, n - 1, desde, hasta);
+  }
+
+  private void sumar(int nodo, int lo, int hi, int desde, int hasta, int v){
+    if (hasta < lo || hi < desde) return;
+    if (desde <= lo && hi <= hasta) { max[nodo] += v; pendiente[nodo] += v; return; }
+    int mid = (lo + hi) >>> 1;
+    sumar(2*nodo, lo, mid, desde, hasta, v);
+    sumar(2*nodo + 1, mid + 1, hi, desde, hasta, v);
+    max[nodo] = Math.max(max[2*nodo], max[2*nodo + 1]) + pendiente[nodo];
+  }
+
+  // el pendiente de cada nodo se acumula al bajar en lugar de propagarse
+  private int maximo(int nodo, int lo, int hi, int desde, int hasta){
+    if (desde <= lo && hi <= hasta) return max[nodo];
+    int mid = (lo + hi) >>> 1;
+    int m = Integer.MIN_VALUE;
+    if (desde <= mid) m = Math.max(m, maximo(2*nodo, lo, mid, desde, hasta));
+    if (hasta > mid)  m = Math.max(m, maximo(2*nodo + 1, mid + 1, hi, desde, hasta));
+    return m + pendiente[nodo];
+  }
+}
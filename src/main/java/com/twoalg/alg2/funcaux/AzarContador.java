@@ -0,0 +1,23 @@
+package alg2.funcaux;
+
+// Números aleatorios por contador: el valor depende solo de (semilla, a, b, c), así que
+// cualquier hilo puede recalcular el mismo sorteo sin guardar estado (SplitMix64).
+public final class AzarContador {
+  private AzarContador(){}
+
+  public static long mezclar(long x){
+    x += 0x9E3779B97F4A7C15L;
+    x = (x ^ (x >>> 30)) * 0xBF58476D1CE4E5B9L;
+    x = (x ^ (x >>> 27)) * 0x94D049BB133111EBL;
+    return x ^ (x >>> 31);
+  }
+
+  public static long bits(long semilla, long a, long b, long c){
+    return mezclar(mezclar(mezclar(semilla ^ a) ^ b) ^ c);
+  }
+
+  // uniforme en [0, 1)
+  public static double uniforme(long semilla, long a, long b, long c){
+    return (bits(semilla, a, b, c) >>> 11) * 0x1.0p-53;
+  }
+}
@@ -0,0 +1,172 @@
+package alg2.funcaux;
+
+import java.util.Arrays;
+
+// Flujo de costo mínimo por caminos más cortos sucesivos (primal-dual): Dijkstra con
+// potenciales (costos reducidos no negativos) sobre el residual, con corte en cuanto
+// sale el sumidero, y después flujo bloqueante por todos los caminos más cortos.
+// Los costos de los arcos deben ser no negativos. Arcos de a pares (e, e^1).
+public final class FlujoCostoMinimo {
+  public static final long INFINITO = Long.MAX_VALUE / 4;
+
+  private final int n;
+  private final int[] cabeza;
+  private int[] destino, siguiente;
+  private long[] capacidad, costo;
+  private int m;
+
+  public FlujoCostoMinimo(int n){
+    if (n > MASCARA) throw new IllegalArgumentException("demasiados nodos: " + n);
+    this.n = n;
+    cabeza = new int[n];
+    Arrays.fill(cabeza, -1);
+    destino = new int[16]; siguiente = new int[16];
+    capacidad = new long[16]; costo = new long[16];
+  }
+
+  public int agregarArco(int desde, int hasta, long cap, long c){
+    if (m + 2 > destino.length){
+      int tam = destino.length * 2;
+      destino = Arrays.copyOf(destino, tam); siguiente = Arrays.copyOf(siguiente, tam);
+      capacidad = Arrays.copyOf(capacidad, tam); costo = Arrays.copyOf(costo, tam);
+    }
+    int e = m;
+    destino[e] = hasta; capacidad[e] = cap; costo[e] = c; siguiente[e] = cabeza[desde]; cabeza[desde] = e;
+    destino[e+1] = desde; capacidad[e+1] = 0; costo[e+1] = -c; siguiente[e+1] = cabeza[hasta]; cabeza[hasta] = e+1;
+    m += 2;
+    return e;
+  }
+
+  public long flujoEn(int e){ return capacidad[e ^ 1]; }
+
+  // envía hasta limite unidades de s a t al menor costo; devuelve {flujo, costo}
+  public long[] resolver(int s, int t, long limite){
+    long[] potencial = new long[n], dist = new long[n];
+    boolean[] fijo = new boolean[n];
+    long[] monticulo = new long[16];
+    long flujo = 0, total = 0;
+
+    while (flujo < limite){
+      Arrays.fill(dist, INFINITO);
+      Arrays.fill(fijo, false);
+      dist[s] = 0;
+      int tam = 0;
+      monticulo = empujar(monticulo, tam++, 0, s);
+      while (tam > 0){
+        long tope = monticulo[0];
+        tam = sacar(monticulo, tam);
+        int u = (int)(tope & MASCARA);
+        if (fijo[u]) continue;
+        fijo[u] = true;
+        if (u == t) break;
+        for (int e = cabeza[u]; e != -1; e = siguiente[e]){
+          if (capacidad[e] == 0) continue;
+          int v = destino[e];
+          if (fijo[v]) continue;
+          long nd = dist[u] + costo[e] + potencial[u] - potencial[v];
+          if (nd < dist[v]){ dist[v] = nd; monticulo = empujar(monticulo, tam++, nd, v); }
+        }
+      }
+      if (!fijo[t]) break;
+
+      // potenciales: los no fijados avanzan lo del sumidero y los reducidos siguen >= 0
+      long dt = dist[t];
+      for (int v=0; v<n; v++) potencial[v] += fijo[v] ? dist[v] : dt;
+
+      // todos los caminos más cortos de una vez: flujo bloqueante sobre los arcos de
+      // costo reducido 0 (con niveles, como Dinic, para no girar en ciclos de costo 0)
+      while (flujo < limite && niveles(s, t, potencial)){
+        System.arraycopy(cabeza, 0, actual, 0, n);
+        long[] fc = bloqueante(s, t, limite - flujo, potencial);
+        flujo += fc[0]; total += fc[1];
+      }
+    }
+    return new long[]{ flujo, total };
+  }
+
+  private int[] nivel, actual, cola, pila;
+
+  private boolean admisible(int e, int u, long[] potencial){
+    return capacidad[e] > 0 && costo[e] + potencial[u] - potencial[destino[e]] == 0;
+  }
+
+  private boolean niveles(int s, int t, long[] potencial){
+    if (nivel == null) { nivel = new int[n]; actual = new int[n]; cola = new int[n]; pila = new int[n]; }
+    Arrays.fill(nivel, -1);
+    int ini = 0, fin = 0;
+    nivel[s] = 0; cola[fin++] = s;
+    while (ini < fin){
+      int u = cola[ini++];
+      if (u == t) break;
+      for (int e = cabeza[u]; e != -1; e = siguiente[e]){
+        int v = destino[e];
+        if (nivel[v] < 0 && admisible(e, u, potencial)){ nivel[v] = nivel[u] + 1; cola[fin++] = v; }
+      }
+    }
+    return nivel[t] >= 0;
+  }
+
+  // caminos s-t en el grafo de niveles admisible, uno a la vez (ver FlujoMaximo); {flujo, costo}
+  private long[] bloqueante(int s, int t, long tope, long[] potencial){
+    long flujo = 0, total = 0;
+    int prof = 0, u = s;
+    while (flujo < tope){
+      if (u == t){
+        long f = tope - flujo;
+        for (int i=0; i<prof; i++) f = Math.min(f, capacidad[pila[i]]);
+        int corte = prof;
+        for (int i=prof-1; i>=0; i--){
+          int e = pila[i];
+          capacidad[e] -= f; capacidad[e ^ 1] += f;
+          total += f * costo[e];
+          if (capacidad[e] == 0) corte = i;
+        }
+        flujo += f;
+        prof = corte;
+        u = (prof == 0) ? s : destino[pila[prof - 1]];
+        continue;
+      }
+      int e = actual[u];
+      while (e != -1 && (nivel[destino[e]] != nivel[u] + 1 || !admisible(e, u, potencial))) e = siguiente[e];
+      actual[u] = e;
+      if (e != -1){ pila[prof++] = e; u = destino[e]; continue; }
+      if (u == s) break;
+      nivel[u] = -1;
+      prof--;
+      u = destino[pila[prof] ^ 1];
+      actual[u] = siguiente[actual[u]];
+    }
+    return new long[]{ flujo, total };
+  }
+
+  // montículo binario de (distancia << BITS | nodo); las distancias reducidas caben holgadas
+  private static final int BITS = 22;
+  private static final long MASCARA = (1L << BITS) - 1;
+
+  private static long[] empujar(long[] h, int tam, long d, int v){
+    if (tam == h.length) h = Arrays.copyOf(h, tam * 2);
+    long x = (d << BITS) | v;
+    int i = tam;
+    while (i > 0){
+      int p = (i - 1) >>> 1;
+      if (h[p] <= x) break;
+      h[i] = h[p]; i = p;
+    }
+    h[i] = x;
+    return h;
+  }
+
+  private static int sacar(long[] h, int tam){
+    long x = h[--tam];
+    int i = 0;
+    while (true){
+      int c = 2*i + 1;
+      if (c >= tam) break;
+      if (c + 1 < tam && h[c+1] < h[c]) c++;
+      if (h[c] >= x) break;
+      h[i] = h[c]; i = c;
+    }
+    if (tam > 0) h[i] = x;
+    return tam;
+  }
+}
@@ -0,0 +1,101 @@
+package alg2.funcaux;
+
+import java.util.Arrays;
+
+// Flujo máximo de Dinic sobre una red dirigida con capacidades enteras.
+// Los arcos se guardan de a pares (arco e, residual e^1); la búsqueda de caminos
+// es iterativa porque las cadenas de espera de la red temporal son muy profundas.
+public final class FlujoMaximo {
+  public static final long INFINITO = Long.MAX_VALUE / 4;
+
+  private final int n;
+  private final int[] cabeza;
+  private int[] destino, siguiente;
+  private long[] capacidad;
+  private int m;
+
+  private int[] nivel, actual, cola, pila;
+
+  public FlujoMaximo(int n){
+    this.n = n;
+    cabeza = new int[n];
+    Arrays.fill(cabeza, -1);
+    destino = new int[16]; siguiente = new int[16]; capacidad = new long[16];
+  }
+
+  public int nodos(){ return n; }
+
+  // devuelve el índice del arco, para consultar su flujo después
+  public int agregarArco(int desde, int hasta, long cap){
+    if (m + 2 > destino.length){
+      int tam = destino.length * 2;
+      destino = Arrays.copyOf(destino, tam);
+      siguiente = Arrays.copyOf(siguiente, tam);
+      capacidad = Arrays.copyOf(capacidad, tam);
+    }
+    int e = m;
+    destino[e] = hasta; capacidad[e] = cap; siguiente[e] = cabeza[desde]; cabeza[desde] = e;
+    destino[e+1] = desde; capacidad[e+1] = 0; siguiente[e+1] = cabeza[hasta]; cabeza[hasta] = e+1;
+    m += 2;
+    return e;
+  }
+
+  // flujo que pasa hoy por el arco e (lo acumulado en su residual)
+  public long flujoEn(int e){ return capacidad[e ^ 1]; }
+
+  public long maximo(int s, int t){
+    nivel = new int[n]; actual = new int[n]; cola = new int[n]; pila = new int[n];
+    long total = 0;
+    while (niveles(s, t)){
+      System.arraycopy(cabeza, 0, actual, 0, n);
+      total += bloqueante(s, t);
+    }
+    return total;
+  }
+
+  private boolean niveles(int s, int t){
+    Arrays.fill(nivel, -1);
+    int ini = 0, fin = 0;
+    nivel[s] = 0; cola[fin++] = s;
+    while (ini < fin){
+      int u = cola[ini++];
+      for (int e = cabeza[u]; e != -1; e = siguiente[e]){
+        int v = destino[e];
+        if (capacidad[e] > 0 && nivel[v] < 0){ nivel[v] = nivel[u] + 1; cola[fin++] = v; }
+      }
+    }
+    return nivel[t] >= 0;
+  }
+
+  // caminos s-t en el grafo de niveles, uno a la vez, con punteros de avance por nodo;
+  // un nodo sin salida queda marcado con nivel -1 y no se vuelve a visitar en la fase
+  private long bloqueante(int s, int t){
+    long total = 0;
+    int prof = 0, u = s;
+    while (true){
+      if (u == t){
+        long f = INFINITO;
+        for (int i=0; i<prof; i++) f = Math.min(f, capacidad[pila[i]]);
+        int corte = prof;
+        for (int i=prof-1; i>=0; i--){
+          int e = pila[i];
+          capacidad[e] -= f; capacidad[e ^ 1] += f;
+          if (capacidad[e] == 0) corte = i;
+        }
+        total += f;
+        prof = corte;
+        u = (prof == 0) ? s : destino[pila[prof - 1]];
+        continue;
+      }
+      int e = actual[u];
+      while (e != -1 && (capacidad[e] == 0 || nivel[destino[e]] != nivel[u] + 1)) e = siguiente[e];
+      actual[u] = e;
+      if (e != -1){ pila[prof++] = e; u = destino[e]; continue; }
+      if (u == s) return total;
+      nivel[u] = -1;
+      prof--;
+      u = destino[pila[prof] ^ 1];
+      actual[u] = siguiente[actual[u]];
+    }
+  }
+}
@@ -0,0 +1,88 @@
+package alg2.funcaux;
+
+import java.util.Arrays;
+
+// Rueda de tiempo (cola calendario) con resolución de un minuto: una ranura por minuto
+// módulo el tamaño de la rueda; cada evento guarda su minuto y al pasar por la ranura
+// solo salen los que vencen en esa vuelta. Los eventos son enteros (quien usa la rueda
+// lleva sus datos aparte) y los nodos de las listas se reciclan.
+public final class RuedaTiempo {
+  private final int mascara;
+  private final int[] cabeza;
+  private int[] siguiente, dato;
+  private long[] minuto;
+  private int libre = -1, usados, pendientes;
+  private long ahora;
+
+  private int[] vencidos = new int[64];
+  private int numVencidos;
+
+  // ranuras: potencia de 2; conviene que cubra buena parte del horizonte
+  public RuedaTiempo(int ranuras, long inicio){
+    if (Integer.bitCount(ranuras) != 1) throw new IllegalArgumentException("ranuras debe ser potencia de 2: " + ranuras);
+    mascara = ranuras - 1;
+    cabeza = new int[ranuras];
+    Arrays.fill(cabeza, -1);
+    siguiente = new int[1024]; dato = new int[1024]; minuto = new long[1024];
+    ahora = inicio;
+  }
+
+  public long ahora(){ return ahora; }
+  public boolean vacia(){ return pendientes == 0; }
+
+  // minutos anteriores al actual se atienden en el minuto actual
+  public void programar(long t, int evento){
+    if (t < ahora) t = ahora;
+    int n;
+    if (libre >= 0) { n = libre; libre = siguiente[n]; }
+    else {
+      if (usados == dato.length){
+        int tam = usados * 2;
+        siguiente = Arrays.copyOf(siguiente, tam); dato = Arrays.copyOf(dato, tam); minuto = Arrays.copyOf(minuto, tam);
+      }
+      n = usados++;
+    }
+    dato[n] = evento; minuto[n] = t;
+    int r = (int)(t & mascara);
+    siguiente[n] = cabeza[r]; cabeza[r] = n;
+    pendientes++;
+  }
+
+  // Avanza minuto a minuto hasta el próximo que tenga eventos y los deja en vencidos(),
+  // en orden de programación. Devuelve cuántos son (0 si la rueda quedó vacía).
+  // Lo que se programe para el minuto actual mientras se atienden sale en la llamada siguiente.
+  public int avanzar(){
+    numVencidos = 0;
+    if (pendientes == 0) return 0;
+    if (hayVencidosEnRanura()) { extraer(); return numVencidos; }
+    while (true){
+      ahora++;
+      if (cabeza[(int)(ahora & mascara)] >= 0 && hayVencidosEnRanura()) { extraer(); return numVencidos; }
+    }
+  }
+
+  public int vencido(int i){ return vencidos[i]; }
+
+  private boolean hayVencidosEnRanura(){
+    for (int n = cabeza[(int)(ahora & mascara)]; n >= 0; n = siguiente[n]) if (minuto[n] == ahora) return true;
+    return false;
+  }
+
+  private void extraer(){
+    int r = (int)(ahora & mascara);
+    int previo = -1, n = cabeza[r];
+    while (n >= 0){
+      int sig = siguiente[n];
+      if (minuto[n] == ahora){
+        if (previo < 0) cabeza[r] = sig; else siguiente[previo] = sig;
+        if (numVencidos == vencidos.length) vencidos = Arrays.copyOf(vencidos, numVencidos * 2);
+        vencidos[numVencidos++] = dato[n];
+        siguiente[n] = libre; libre = n;
+        pendientes--;
+      } else previo = n;
+      n = sig;
+    }
+    // las listas se arman al revés: se devuelven en orden de programación
+    for (int i = 0, j = numVencidos - 1; i < j; i++, j--){ int x = vencidos[i]; vencidos[i] = vencidos[j]; vencidos[j] = x; }
+  }
+}
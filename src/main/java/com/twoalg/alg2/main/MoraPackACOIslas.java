@@ -0,0 +1,105 @@
+package com.twoalg.alg2.main;
+
+import alg2.model.*;
+import alg2.entrada.*;
+import alg2.algoritmo.BusquedaLocal;
+import alg2.algoritmo.ModeloIslas;
+import alg2.algoritmo.MotorACO;
+import alg2.config.ConfiguracionACO;
+import alg2.reporte.Reportes;
+
+import java.io.File;
+import java.nio.file.*; import java.time.*; import java.util.*;
+
+// Uso: MoraPackACOIslas [--islas N] [--intervalo K] [--semilla S] [--hormigas H] [--iteraciones I]
+//                        [--haz W] [--hilos] [--dir D] [pedidos.txt]
+// Por defecto lanza N JVM trabajadoras en esta máquina que migran por archivos en D
+// (un directorio temporal nuevo si no se indica); con --hilos las islas corren en
+// este mismo proceso. Cada trabajador se invoca con --trabajador i y los mismos
+// argumentos; todos cargan la instancia con la misma semilla para que los ids coincidan.
+public class MoraPackACOIslas {
+  public static void main(String[] args) throws Exception {
+    Path archivoAeropuertos = Paths.get("com/twoalg/alg2/c.1inf54.25.2.Aeropuerto.husos.v1.20250818__estudiantes.txt");
+    Path archivoVuelos = Paths.get("com/twoalg/alg2/c.1inf54.25.2.planes_vuelo.v4.20250818.txt");
+    Path archivoPedidos = Paths.get("com/twoalg/alg2/pedidos.txt");
+
+    int numIslas = 4, intervalo = 10, trabajador = -1;
+    double meta = Double.NaN;  // los trabajadores la reciben del padre
+    ConfiguracionACO cfg = ConfiguracionACO.desdeParametros();
+    long semilla = 20250917L;
+    boolean enHilos = false;
+    Path dir = null;
+    for (int i = 0; i < args.length; i++) {
+      switch (args[i]) {
+        case "--islas":      numIslas = Integer.parseInt(args[++i]); break;
+        case "--intervalo":  intervalo = Integer.parseInt(args[++i]); break;
+        case "--semilla":    semilla = Long.parseLong(args[++i]); break;
+        case "--hormigas":   cfg = cfg.conNumHormigas(Integer.parseInt(args[++i])); break;
+        case "--iteraciones": cfg = cfg.conMaxIteraciones(Integer.parseInt(args[++i])); break;
+        case "--haz":        cfg = cfg.conAnchoHaz(Integer.parseInt(args[++i])); break;
+        case "--hilos":      enHilos = true; break;
+        case "--dir":        dir = Paths.get(args[++i]); break;
+        case "--trabajador": trabajador = Integer.parseInt(args[++i]); break;
+        case "--meta":       meta = Double.parseDouble(args[++i]); break;
+        default:             archivoPedidos = Paths.get(args[i]);
+      }
+    }
+
+    LocalDate ancla = LocalDate.now();
+    Instancia inst = CargaInstancia.cargar(archivoAeropuertos, archivoVuelos, archivoPedidos, ancla, new Random(semilla));
+
+    if (trabajador >= 0) {
+      ModeloIslas.Canal canal = new ModeloIslas.CanalDirectorio(dir, numIslas, inst);
+      MotorACO motor = new MotorACO(cfg, semilla + trabajador);
+      if (Double.isNaN(meta)) meta = motor.valorMeta(inst);
+      Solucion s = ModeloIslas.correrIsla(motor, inst, trabajador, canal, intervalo, meta);
+      System.out.printf("Isla %d: a tiempo=%d tarde=%d fitness=%.2f%n",
+        trabajador, s.subpedidosATiempo, s.subpedidosTarde, s.valorObjetivo);
+      return;
+    }
+
+    long t0 = System.currentTimeMillis();
+    if (Double.isNaN(meta)) meta = new MotorACO(cfg, semilla).valorMeta(inst);
+    Solucion mejor;
+    if (enHilos) {
+      mejor = ModeloIslas.correrEnHilos(cfg, inst, numIslas, intervalo, semilla, meta);
+    } else {
+      if (dir == null) dir = Files.createTempDirectory("morapack-islas");
+      else Files.createDirectories(dir);
+      // migrantes de una corrida anterior en el mismo directorio se leerían como propios
+      try (DirectoryStream<Path> viejos = Files.newDirectoryStream(dir, "epoca-*.txt")) {
+        for (Path p : viejos) Files.delete(p);
+      }
+      String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+      List<Process> procesos = new ArrayList<>();
+      for (int i = 0; i < numIslas; i++) {
+        List<String> cmd = new ArrayList<>(List.of(java, "-cp", System.getProperty("java.class.path"),
+          MoraPackACOIslas.class.getName(), "--trabajador", String.valueOf(i), "--islas", String.valueOf(numIslas),
+          "--intervalo", String.valueOf(intervalo), "--semilla", String.valueOf(semilla),
+          "--hormigas", String.valueOf(cfg.numHormigas), "--iteraciones", String.valueOf(cfg.maxIteraciones),
+          "--haz", String.valueOf(cfg.anchoHaz), "--meta", String.valueOf(meta),
+          "--dir", dir.toString(), archivoPedidos.toString()));
+        File log = dir.resolve(String.format("isla-%03d.log", i)).toFile();
+        procesos.add(new ProcessBuilder(cmd).redirectErrorStream(true).redirectOutput(log).start());
+      }
+      for (int i = 0; i < procesos.size(); i++) {
+        int codigo = procesos.get(i).waitFor();
+        if (codigo != 0) System.err.printf("Isla %d terminó con código %d (ver %s)%n", i, codigo, dir.resolve(String.format("isla-%03d.log", i)));
+      }
+      // la época final ya tiene la élite de cada isla; basta leerla
+      ModeloIslas.Canal canal = new ModeloIslas.CanalDirectorio(dir, numIslas, inst);
+      mejor = null;
+      for (ModeloIslas.Migrante m : canal.recolectar(ModeloIslas.epocaFinal(cfg, intervalo), 0))
+        if (mejor == null || m.elite.valorObjetivo > mejor.valorObjetivo) mejor = m.elite;
+      if (mejor == null) throw new IllegalStateException("Ninguna isla publicó su resultado en " + dir);
+      // los trabajadores no pulen: se pule una sola vez la élite leída
+      if (cfg.limiteBusquedaLocalMs > 0)
+        mejor = new BusquedaLocal(new MotorACO(cfg, semilla), inst).mejorar(mejor, cfg.limiteBusquedaLocalMs);
+    }
+    long t1 = System.currentTimeMillis();
+
+    System.out.printf("ACO islas (%d, cada %d iter): a tiempo=%d tarde=%d fitness=%.2f en %d ms%n",
+      numIslas, intervalo, mejor.subpedidosATiempo, mejor.subpedidosTarde, mejor.valorObjetivo, t1 - t0);
+    Reportes.mostrarPlanificacionPorPedido(inst, mejor, "com/twoalg/alg2/reporte_planificacion.txt");
+  }
+}
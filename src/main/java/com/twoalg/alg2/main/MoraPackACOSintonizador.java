@@ -0,0 +1,59 @@
+package com.twoalg.alg2.main;
+
+import alg2.model.*;
+import alg2.entrada.*;
+import alg2.algoritmo.MotorACO;
+import alg2.algoritmo.SintonizadorACO;
+import alg2.config.ConfiguracionACO;
+
+import java.nio.file.*; import java.time.*; import java.util.*;
+
+// Uso: MoraPackACOSintonizador [--candidatos N] [--bloques B] [--limite-ms L] [--hilos H]
+//                              [--semilla S] [--meta V] pedidos1.txt [pedidos2.txt ...]
+// Sin --meta, la meta de cada instancia es el fitness que logra la configuración actual
+// de Parametros (se busca la configuración que llegue a esa calidad en menos tiempo).
+public class MoraPackACOSintonizador {
+  public static void main(String[] args) throws Exception {
+    Path archivoAeropuertos = Paths.get("com/twoalg/alg2/c.1inf54.25.2.Aeropuerto.husos.v1.20250818__estudiantes.txt");
+    Path archivoVuelos = Paths.get("com/twoalg/alg2/c.1inf54.25.2.planes_vuelo.v4.20250818.txt");
+
+    int numCandidatos = 16, maxBloques = 20, hilos = Runtime.getRuntime().availableProcessors();
+    long limiteMs = 60_000, semilla = 20250917L;
+    Double metaFija = null;
+    List<Path> archivosPedidos = new ArrayList<>();
+    for (int i = 0; i < args.length; i++) {
+      switch (args[i]) {
+        case "--candidatos": numCandidatos = Integer.parseInt(args[++i]); break;
+        case "--bloques":    maxBloques = Integer.parseInt(args[++i]); break;
+        case "--limite-ms":  limiteMs = Long.parseLong(args[++i]); break;
+        case "--hilos":      hilos = Integer.parseInt(args[++i]); break;
+        case "--semilla":    semilla = Long.parseLong(args[++i]); break;
+        case "--meta":       metaFija = Double.parseDouble(args[++i]); break;
+        default:             archivosPedidos.add(Paths.get(args[i]));
+      }
+    }
+    if (archivosPedidos.isEmpty()) archivosPedidos.add(Paths.get("com/twoalg/alg2/pedidos.txt"));
+
+    LocalDate ancla = LocalDate.now();
+    List<Instancia> instancias = new ArrayList<>();
+    for (Path p : archivosPedidos)
+      instancias.add(CargaInstancia.cargar(archivoAeropuertos, archivoVuelos, p, ancla, new Random(semilla)));
+
+    ConfiguracionACO base = ConfiguracionACO.desdeParametros();
+    double[] metas = new double[instancias.size()];
+    for (int i = 0; i < metas.length; i++) {
+      metas[i] = (metaFija != null) ? metaFija
+               : new MotorACO(base, semilla).ejecutarACO(instancias.get(i), Double.POSITIVE_INFINITY, limiteMs).valorObjetivo;
+      System.out.printf("Meta %s: %.2f%n", archivosPedidos.get(i), metas[i]);
+    }
+
+    List<ConfiguracionACO> candidatos = SintonizadorACO.generarCandidatos(base, numCandidatos, new Random(semilla));
+    SintonizadorACO.Resultado res = new SintonizadorACO(instancias, metas, limiteMs, hilos, semilla)
+      .competir(candidatos, maxBloques);
+
+    for (int b = 0; b < res.vivosPorBloque.size(); b++)
+      System.out.printf("Bloque %d: %d configuraciones vivas%n", b + 1, res.vivosPorBloque.get(b));
+    System.out.printf("Bloques corridos: %d | sobrevivientes: %d%n", res.bloquesCorridos, res.sobrevivientes.size());
+    System.out.printf("Mejor configuración (%.0f ms promedio hasta la meta): %s%n", res.tiempoMedioMs, res.mejor);
+  }
+}
@@ -4,9 +4,6 @@ import alg2.model.*;
 import alg2.entrada.*;
 import alg2.algoritmo.Planificador;
 import alg2.config.Parametros;
-import alg2.algoritmo.Preprocesamiento;
-import alg2.algoritmo.PedidoSplitter;
-import alg2.algoritmo.PedidoSplitter;
 import alg2.reporte.Reportes;
 
 import java.nio.file.*; import java.time.*; import java.util.*;
@@ -25,22 +22,7 @@ public class MoraPackACOmain {
     }
 
     LocalDate ancla = LocalDate.now();
-    Instancia inst = new Instancia();
-    inst.fechaAncla = ancla;
-    inst.diasMes = ancla.lengthOfMonth();
-
-    inst.aeropuertos = CargaAeropuertos.cargar(archivoAeropuertos);
-    inst.vuelos = CargaVuelos.cargar(archivoVuelos, inst.aeropuertos, ancla);
-
-    for (Vuelo f : inst.vuelos) 
-      inst.vuelosPorOrigen.computeIfAbsent(f.origen, k -> new ArrayList<>()).add(f);
-    for (java.util.List<Vuelo> lst : inst.vuelosPorOrigen.values()) 
-      lst.sort(java.util.Comparator.comparingLong(v -> v.salidaUTC));
-
-    Preprocesamiento.precomputarDistanciasPorSaltos(inst);
-
-    java.util.List<Pedido> pedidosOriginales = CargaPedidos.cargar(archivoPedidos, inst, ancla, azar);
-    inst.pedidos = PedidoSplitter.dividirPedidosEnSubpedidos(pedidosOriginales, inst, 100000);
+    Instancia inst = CargaInstancia.cargar(archivoAeropuertos, archivoVuelos, archivoPedidos, ancla, azar);
 
     long t0 = System.currentTimeMillis();
     Solucion heur = Planificador.construirSolucionHeuristica(inst);
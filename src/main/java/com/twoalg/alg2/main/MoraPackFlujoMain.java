@@ -0,0 +1,33 @@
+package com.twoalg.alg2.main;
+
+import alg2.model.*;
+import alg2.entrada.*;
+import alg2.algoritmo.MotorFlujo;
+import alg2.reporte.Reportes;
+
+import java.nio.file.*; import java.time.*; import java.util.*;
+
+// Planificación con el motor de flujo de costo mínimo (sin metaheurística).
+// Uso: MoraPackFlujoMain [archivoPedidos] [semilla]
+public class MoraPackFlujoMain {
+  public static void main(String[] args) throws Exception {
+    Path archivoAeropuertos = Paths.get("com/twoalg/alg2/c.1inf54.25.2.Aeropuerto.husos.v1.20250818__estudiantes.txt");
+    Path archivoVuelos = Paths.get("com/twoalg/alg2/c.1inf54.25.2.planes_vuelo.v4.20250818.txt");
+    Path archivoPedidos = Paths.get(args.length >= 1 ? args[0] : "com/twoalg/alg2/pedidos.txt");
+
+    Random azar = new Random();
+    if (args.length >= 2) azar.setSeed(Long.parseLong(args[1]));
+
+    LocalDate ancla = LocalDate.now();
+    Instancia inst = CargaInstancia.cargar(archivoAeropuertos, archivoVuelos, archivoPedidos, ancla, azar);
+
+    long t0 = System.currentTimeMillis();
+    Solucion sol = new MotorFlujo().planificar(inst);
+    long t1 = System.currentTimeMillis();
+
+    System.out.printf("Flujo: a tiempo=%d tarde=%d fitness=%.2f (%d ms)%n",
+      sol.subpedidosATiempo, sol.subpedidosTarde, sol.valorObjetivo, t1 - t0);
+
+    Reportes.mostrarPlanificacionPorPedido(inst, sol, "com/twoalg/alg2/reporte_planificacion.txt");
+  }
+}
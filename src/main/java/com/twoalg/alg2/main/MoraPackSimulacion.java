@@ -0,0 +1,65 @@
+package com.twoalg.alg2.main;
+
+import alg2.model.*;
+import alg2.entrada.*;
+import alg2.algoritmo.*;
+import alg2.simulacion.*;
+import alg2.config.Parametros;
+import alg2.reporte.Reportes;
+
+import java.nio.file.*; import java.time.*; import java.util.*;
+
+// Planifica (flujo de costo mínimo o ACO) y ejecuta el plan en el simulador de eventos
+// antes de publicarlo: estado final de los envíos, sobrecargas y líneas de tiempo; después
+// mide su robustez ante retrasos de vuelos (Monte Carlo).
+// Uso: MoraPackSimulacion [archivoPedidos] [semilla] [flujo|aco] [escenarios]
+public class MoraPackSimulacion {
+  public static void main(String[] args) throws Exception {
+    Path archivoAeropuertos = Paths.get("com/twoalg/alg2/c.1inf54.25.2.Aeropuerto.husos.v1.20250818__estudiantes.txt");
+    Path archivoVuelos = Paths.get("com/twoalg/alg2/c.1inf54.25.2.planes_vuelo.v4.20250818.txt");
+    Path archivoPedidos = Paths.get(args.length >= 1 ? args[0] : "com/twoalg/alg2/pedidos.txt");
+
+    Random azar = new Random();
+    if (args.length >= 2) azar.setSeed(Long.parseLong(args[1]));
+    boolean conACO = args.length >= 3 && args[2].equalsIgnoreCase("aco");
+    int escenarios = args.length >= 4 ? Integer.parseInt(args[3]) : Parametros.ESCENARIOS_ROBUSTEZ;
+
+    LocalDate ancla = LocalDate.now();
+    Instancia inst = CargaInstancia.cargar(archivoAeropuertos, archivoVuelos, archivoPedidos, ancla, azar);
+
+    Solucion sol = conACO ? Planificador.ejecutarACO(inst) : new MotorFlujo().planificar(inst);
+    System.out.printf("Plan (%s): a tiempo=%d tarde=%d violaciones=%d%n",
+      conACO ? "ACO" : "flujo", sol.subpedidosATiempo, sol.subpedidosTarde, sol.violacionesCapacidad);
+
+    long t0 = System.nanoTime();
+    ResultadoSimulacion res = new Simulador(inst, sol).ejecutar();
+    long t1 = System.nanoTime();
+
+    System.out.printf("Simulación: %d eventos en %.1f ms%n", res.eventos, (t1 - t0) / 1e6);
+    System.out.printf("  entregados a tiempo=%d (%d u)  tarde=%d (%d u)  sin entregar=%d (%d u)%n",
+      res.entregadosATiempo, res.cantidadATiempo, res.entregadosTarde, res.cantidadTarde, res.sinEntregar, res.cantidadSinEntregar);
+    System.out.printf("  varados=%d  vuelos sobrecargados=%d  franjas de almacén excedidas=%d%n",
+      res.varados, res.sobrecargasVuelo, res.franjasAlmacenExcedidas);
+
+    Reportes.escribirLineasDeTiempo(inst, res, "com/twoalg/alg2/lineas_tiempo.csv");
+
+    if (escenarios <= 0) return;
+    t0 = System.nanoTime();
+    ResultadoRobustez rob = new EvaluadorRobustez(inst, sol).evaluar(escenarios, 1L);
+    t1 = System.nanoTime();
+    System.out.printf("Robustez (%d escenarios, %.1f ms): a tiempo nominal=%d media=%.1f p5=%d peor=%d cantidad media=%.0f%n",
+      escenarios, (t1 - t0) / 1e6, rob.subpedidosATiempoNominal, rob.subpedidosATiempoMedio, rob.percentil5, rob.peorEscenario, rob.cantidadATiempoMedia);
+
+    // los subpedidos planificados a tiempo más frágiles
+    List<Integer> fragiles = new ArrayList<>();
+    for (int j = 0; j < inst.pedidos.size(); j++) {
+      Ruta r = sol.rutas.get(inst.pedidos.get(j).id);
+      if (r != null && r.aTiempo) fragiles.add(j);
+    }
+    fragiles.sort(Comparator.comparingDouble(j -> rob.probabilidadATiempo[j]));
+    for (int j : fragiles.subList(0, Math.min(10, fragiles.size()))) {
+      Pedido p = inst.pedidos.get(j);
+      System.out.printf("  subpedido %d -> %s: P(a tiempo)=%.3f%n", p.id, p.destino, rob.probabilidadATiempo[j]);
+    }
+  }
+}
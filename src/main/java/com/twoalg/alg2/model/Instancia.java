@@ -14,4 +14,11 @@ public class Instancia {
   public String[] indiceAAeropuerto;
   public int[][] distanciaSaltos;
   public int normalizadorSaltos = 1;
+  public double[][] progresoHacia;        // [desde][destino] = Geo.progresoHaciaDestino
+  public int[] continenteAeropuerto;      // id de continente por índice; -1 si no tiene
+
+  // salidas de cada aeropuerto en arreglos paralelos
+  public Map<String, LoteVuelos> lotesPorOrigen = new HashMap<>();
+  // aeropuerto -> destino -> vuelos salientes más prometedores (ver Preprocesamiento)
+  public Map<String, Map<String, LoteVuelos>> listasCandidatas = new HashMap<>();
 }
@@ -0,0 +1,23 @@
+package alg2.model;
+
+// Vuelos salientes de un aeropuerto en arreglos paralelos, para puntuarlos en bloque
+// con ciclos sobre primitivos (ver Heuristica.evaluarLote). Lo arma Preprocesamiento.
+public class LoteVuelos {
+  public final int tamanio;
+  public final Vuelo[] vuelos;
+  public final String[] claves;          // Claves.claveVuelo de cada vuelo
+  public final long[] salidaUTC, llegadaUTC;
+  public final int[] capacidad;
+  public final int[] destino;            // índice de aeropuerto (Instancia.indiceAeropuerto)
+  public final int[] continenteDestino;  // Instancia.continenteAeropuerto del destino
+
+  public LoteVuelos(int n){
+    tamanio = n;
+    vuelos = new Vuelo[n];
+    claves = new String[n];
+    salidaUTC = new long[n]; llegadaUTC = new long[n];
+    capacidad = new int[n];
+    destino = new int[n];
+    continenteDestino = new int[n];
+  }
+}
@@ -3,6 +3,7 @@ import java.util.*;
 
 public class Ruta {
   public String idRuta = UUID.randomUUID().toString();
+  public String origen; // hub desde el que sale la ruta
   public java.util.List<SubRuta> subrutas = new ArrayList<>();
   public double tiempoTotal;
   public double capacidadMinimaDisponible;
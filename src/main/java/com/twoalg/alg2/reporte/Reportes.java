@@ -3,6 +3,7 @@ package alg2.reporte;
 
 import alg2.model.*;
 import alg2.funcaux.Tiempo;
+import alg2.simulacion.ResultadoSimulacion;
 import java.io.*; import java.util.*;
 
 public class Reportes {
@@ -23,12 +24,14 @@ public class Reportes {
         List<Pedido> lista = e.getValue();
         lista.sort(java.util.Comparator.comparingInt(p -> p.indiceSubpedido));
         Pedido base = lista.get(0);
-        Aeropuerto apOri = inst.aeropuertos.get(base.origen);
+        Ruta rutaBase = sol.rutas.get(base.id);
+        String origenBase = (base.origen != null) ? base.origen : (rutaBase != null ? rutaBase.origen : null);
         Aeropuerto apDes = inst.aeropuertos.get(base.destino);
+        Aeropuerto apOri = (origenBase != null) ? inst.aeropuertos.get(origenBase) : apDes;
         int totalCantidad = lista.stream().mapToInt(p -> p.cantidad).sum();
 
         out.printf(">> PEDIDO #%d | Origen: %s | Destino: %s | Cantidad: %d | Subpedidos: %d%n",
-          e.getKey(), base.origen, base.destino, totalCantidad, lista.size());
+          e.getKey(), (origenBase == null ? "-" : origenBase), base.destino, totalCantidad, lista.size());
         out.println("-".repeat(120));
         out.printf("%-12s | %-8s | %-10s | %-12s | %-12s | %-15s%n",
           "SUBPEDIDO","CANTIDAD","ESTADO","HORA LIB.","PLAZO","RESULTADO");
@@ -72,4 +75,24 @@ public class Reportes {
       ex.printStackTrace();
     }
   }
+
+  // Líneas de tiempo de una simulación en CSV (una fila por franja, hora UTC):
+  // ocupación máxima de cada almacén y subpedidos vencidos sin entregar
+  public static void escribirLineasDeTiempo(Instancia inst, ResultadoSimulacion res, String rutaArchivo){
+    try (PrintWriter out = new PrintWriter(new FileWriter(rutaArchivo))) {
+      StringBuilder cab = new StringBuilder("franja;inicioUTC;vencidos;cantidadVencida");
+      for (String ap : res.aeropuertos) cab.append(';').append(ap);
+      out.println(cab);
+      for (int f = 0; f < res.numFranjas; f++) {
+        long t = res.inicioUTC + (long) f * res.minutosPorFranja;
+        StringBuilder fila = new StringBuilder();
+        fila.append(f).append(';').append(Tiempo.fmtLocalDHHMM(t, 0, inst.fechaAncla))
+            .append(';').append(res.vencidosPendientes[f]).append(';').append(res.cantidadVencidaPendiente[f]);
+        for (int[] serie : res.ocupacionMaxima) fila.append(';').append(serie[f]);
+        out.println(fila);
+      }
+    } catch (IOException ex) {
+      ex.printStackTrace();
+    }
+  }
 }
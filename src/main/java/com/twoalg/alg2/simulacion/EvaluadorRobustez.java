@@ -0,0 +1,146 @@
+package alg2.simulacion;
+
+import alg2.model.*;
+import alg2.funcaux.AzarContador;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static alg2.config.Parametros.*;
+
+// Monte Carlo de un plan bajo retrasos de salida. Cada escenario sortea un retraso por
+// vuelo-día con AzarContador (semilla, escenario, vuelo, día): los escenarios no se
+// guardan ni se copia el plan, cualquier hilo recalcula el mismo retraso, y todos los
+// subpedidos de un escenario ven el mismo vuelo igual de atrasado.
+// En cada tramo la carga tiene que estar MINUTOS_CONEXION_MINIMA antes de la salida real;
+// si no llega, espera el mismo vuelo al día siguiente (sin competir por capacidad,
+// es una estimación optimista del reacomodo). Los escenarios se reparten en bloques
+// entre hilos; cada bloque suma sus aciertos por subpedido.
+public class EvaluadorRobustez {
+  private static final int MAX_DIAS_ESPERA = 7;
+
+  private final Instancia inst;
+  private final int hilos;
+
+  // plan aplanado: tramos de la ruta del subpedido j en [inicioTramo[j], inicioTramo[j+1])
+  private final int[] inicioTramo, vueloTramo, diaTramo;
+  private final long[] salidaTramo, llegadaTramo, liberacion, vencimiento;
+  private final int[] cantidad;
+
+  public EvaluadorRobustez(Instancia inst, Solucion sol, int hilos){
+    this.inst = inst;
+    this.hilos = Math.max(1, hilos);
+    int np = inst.pedidos.size();
+    Map<Vuelo,Integer> idVuelo = new IdentityHashMap<>();
+    for (Vuelo v : inst.vuelos) idVuelo.put(v, idVuelo.size());
+
+    inicioTramo = new int[np + 1];
+    liberacion = new long[np]; vencimiento = new long[np]; cantidad = new int[np];
+    List<SubRuta> tramos = new ArrayList<>();
+    for (int j=0; j<np; j++){
+      Pedido p = inst.pedidos.get(j);
+      liberacion[j] = p.liberacionUTC; vencimiento[j] = p.vencimientoUTC; cantidad[j] = p.cantidad;
+      Ruta r = sol.rutas.get(p.id);
+      // sin ruta: cantidad negativa, no entra en la cuenta
+      if (r == null) { inicioTramo[j+1] = inicioTramo[j]; cantidad[j] = -p.cantidad; continue; }
+      tramos.addAll(r.subrutas);
+      inicioTramo[j+1] = tramos.size();
+    }
+    int nt = tramos.size();
+    vueloTramo = new int[nt]; diaTramo = new int[nt]; salidaTramo = new long[nt]; llegadaTramo = new long[nt];
+    for (int k=0; k<nt; k++){
+      SubRuta s = tramos.get(k);
+      Integer v = idVuelo.get(s.vuelo);
+      vueloTramo[k] = (v == null) ? -1 - k : v;
+      diaTramo[k] = (int)Math.floorDiv(s.salidaAjustadaUTC - s.vuelo.salidaUTC, 1440L);
+      salidaTramo[k] = s.salidaAjustadaUTC; llegadaTramo[k] = s.llegadaAjustadaUTC;
+    }
+  }
+
+  public EvaluadorRobustez(Instancia inst, Solucion sol){
+    this(inst, sol, Runtime.getRuntime().availableProcessors());
+  }
+
+  public ResultadoRobustez evaluar(int escenarios, long semilla) throws InterruptedException, ExecutionException {
+    int np = inst.pedidos.size();
+    ResultadoRobustez res = new ResultadoRobustez();
+    res.escenarios = escenarios;
+    res.aTiempoPorEscenario = new int[escenarios];
+    long[] cantidadPorEscenario = new long[escenarios];
+
+    int bloques = Math.min(escenarios, hilos * 4);
+    int[] aciertos = new int[np];
+    ExecutorService pool = Executors.newFixedThreadPool(hilos);
+    try {
+      List<Future<int[]>> futuros = new ArrayList<>();
+      for (int b = 0; b < bloques; b++) {
+        int desde = (int)((long) escenarios * b / bloques), hasta = (int)((long) escenarios * (b + 1) / bloques);
+        futuros.add(pool.submit(() -> correrBloque(desde, hasta, semilla, res.aTiempoPorEscenario, cantidadPorEscenario)));
+      }
+      for (Future<int[]> f : futuros) {
+        int[] parcial = f.get();
+        for (int j=0; j<np; j++) aciertos[j] += parcial[j];
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+
+    res.probabilidadATiempo = new double[np];
+    for (int j=0; j<np; j++) res.probabilidadATiempo[j] = escenarios == 0 ? 0 : (double) aciertos[j] / escenarios;
+    long sumaSub = 0, sumaCant = 0;
+    for (int e=0; e<escenarios; e++) { sumaSub += res.aTiempoPorEscenario[e]; sumaCant += cantidadPorEscenario[e]; }
+    if (escenarios > 0) {
+      res.subpedidosATiempoMedio = (double) sumaSub / escenarios;
+      res.cantidadATiempoMedia = (double) sumaCant / escenarios;
+      int[] orden = res.aTiempoPorEscenario.clone();
+      Arrays.sort(orden);
+      res.peorEscenario = orden[0];
+      res.percentil5 = orden[(int)(0.05 * (escenarios - 1))];
+    }
+    for (int j=0; j<np; j++) if (cantidad[j] > 0 && llegadaNominal(j) <= vencimiento[j]) res.subpedidosATiempoNominal++;
+    return res;
+  }
+
+  private int[] correrBloque(int desde, int hasta, long semilla, int[] aTiempoPorEscenario, long[] cantidadPorEscenario){
+    int np = cantidad.length;
+    int[] aciertos = new int[np];
+    for (int e = desde; e < hasta; e++) {
+      int n = 0; long q = 0;
+      for (int j=0; j<np; j++) {
+        if (cantidad[j] <= 0) continue;
+        if (llegada(j, e, semilla) <= vencimiento[j]) { aciertos[j]++; n++; q += cantidad[j]; }
+      }
+      aTiempoPorEscenario[e] = n;
+      cantidadPorEscenario[e] = q;
+    }
+    return aciertos;
+  }
+
+  // llegada final del subpedido j en el escenario e (Long.MAX_VALUE si se queda varado)
+  private long llegada(int j, int e, long semilla){
+    long listo = liberacion[j];
+    for (int k = inicioTramo[j]; k < inicioTramo[j+1]; k++) {
+      long llegada = -1;
+      for (int d = 0; d <= MAX_DIAS_ESPERA; d++) {
+        long retraso = retraso(semilla, e, vueloTramo[k], diaTramo[k] + d);
+        long salida = salidaTramo[k] + 1440L * d + retraso;
+        if (listo + MINUTOS_CONEXION_MINIMA <= salida) { llegada = llegadaTramo[k] + 1440L * d + retraso; break; }
+      }
+      if (llegada < 0) return Long.MAX_VALUE;
+      listo = llegada;
+    }
+    return listo;
+  }
+
+  private long llegadaNominal(int j){
+    return inicioTramo[j+1] > inicioTramo[j] ? llegadaTramo[inicioTramo[j+1] - 1] : liberacion[j];
+  }
+
+  private static long retraso(long semilla, int escenario, int vuelo, int dia){
+    double u = AzarContador.uniforme(semilla, escenario, vuelo, dia);
+    if (u >= PROBABILIDAD_RETRASO_VUELO) return 0;
+    // reusa el sorteo: dado que hay retraso, u / p es uniforme en [0, 1)
+    double v = u / PROBABILIDAD_RETRASO_VUELO;
+    return Math.round(-RETRASO_MEDIO_MINUTOS * Math.log1p(-v));
+  }
+}
@@ -0,0 +1,11 @@
+package alg2.simulacion;
+
+// Resultado del EvaluadorRobustez. Los arreglos por subpedido siguen el orden de inst.pedidos.
+public class ResultadoRobustez {
+  public int escenarios;
+  public double[] probabilidadATiempo;     // 0 para subpedidos sin ruta
+  public double subpedidosATiempoMedio, cantidadATiempoMedia;
+  public int subpedidosATiempoNominal;      // sin retrasos
+  public int peorEscenario, percentil5;     // subpedidos a tiempo
+  public int[] aTiempoPorEscenario;
+}
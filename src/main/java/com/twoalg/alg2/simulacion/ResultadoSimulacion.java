@@ -0,0 +1,25 @@
+package alg2.simulacion;
+
+import alg2.model.EstadoVuelo;
+
+// Lo que deja una corrida del Simulador: totales y líneas de tiempo por franja
+// (MINUTOS_POR_FRANJA desde inicioUTC).
+public class ResultadoSimulacion {
+  public long eventos;
+  public int entregadosATiempo, entregadosTarde, sinEntregar;
+  public long cantidadATiempo, cantidadTarde, cantidadSinEntregar;
+  public int varados;              // subpedidos que no pudieron tomar un tramo (vuelo cancelado o carga ausente)
+  public int sobrecargasVuelo;     // vuelos-día que despegaron con más carga que su capacidad
+  public int franjasAlmacenExcedidas;
+
+  public long inicioUTC;
+  public int minutosPorFranja, numFranjas;
+  public String[] aeropuertos;
+  public int[][] ocupacionMaxima;        // [aeropuerto][franja]
+  public int[] vencidosPendientes;       // subpedidos vencidos y no entregados al cierre de la franja
+  public long[] cantidadVencidaPendiente;
+
+  public String[] clavesVueloDia;        // vuelos-día que usa el plan, con su estado final
+  public EstadoVuelo[] estadoVueloDia;
+  public int[] cargaVueloDia;
+}
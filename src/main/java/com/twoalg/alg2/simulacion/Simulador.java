@@ -0,0 +1,268 @@
+package alg2.simulacion;
+
+import alg2.model.*;
+import alg2.funcaux.Claves;
+import alg2.funcaux.RuedaTiempo;
+
+import java.util.*;
+
+import static alg2.config.Parametros.*;
+
+// Simulación de eventos discretos de un plan: ejecuta la Solucion minuto a minuto
+// sobre una RuedaTiempo. Eventos:
+//  - liberación: la carga del subpedido aparece en el hub de su ruta
+//  - salida / llegada de cada vuelo-día que usa el plan: mueve la carga de los
+//    subpedidos que están en el aeropuerto esperando ese tramo y cambia el estado
+//    del vuelo (PROGRAMADO -> EN_VUELO -> ARRIBADO); un vuelo CANCELADO no sale y
+//    su carga queda varada en el aeropuerto
+//  - recojo: fin de la ventana de recojo en destino, la carga deja el almacén
+//  - vencimiento: si no se entregó, el producto pasa a RETRASADO
+// En un mismo minuto primero sale la carga (salidas, recojos) y después entra
+// (liberaciones, llegadas), como los intervalos [llegada, salida) del RegistroCapacidad;
+// los vencimientos van al final, así que llegar justo al vencimiento es a tiempo.
+// Actualiza Producto.estado de cada subpedido y Vuelo.estado de las plantillas.
+public class Simulador {
+  private static final int SALIDA = 0, RECOJO = 1, LIBERACION = 2, LLEGADA = 3, VENCIMIENTO = 4, TIPOS = 5;
+  private static final int MAX_RANURAS = 1 << 21;   // rueda de hasta ~4 años de minutos
+
+  private final Instancia inst;
+  private final Solucion sol;
+
+  public Simulador(Instancia inst, Solucion sol){ this.inst = inst; this.sol = sol; }
+
+  // estado por subpedido (índice en inst.pedidos)
+  private Ruta[] ruta;
+  private int[] tramo, ubicacion;
+  private boolean[] enVuelo, entregado, vencido, varado;
+
+  // vuelos-día: carga planificada en CSR (pedido, tramo)
+  private Vuelo[] vueloFd;
+  private int[] origenFd, destinoFd, inicioCarga, pedidoCarga, tramoCarga, cargaFd;
+  private EstadoVuelo[] estadoFd;
+
+  // ocupación de almacenes y retrasos
+  private int[] nivel, ultimaFranja;
+  private int vencidosAhora, ultimaFranjaRetraso;
+  private long cantidadVencidaAhora;
+  private ResultadoSimulacion res;
+
+  public ResultadoSimulacion ejecutar(){
+    List<Pedido> pedidos = inst.pedidos;
+    int np = pedidos.size(), na = inst.indiceAAeropuerto.length;
+    res = new ResultadoSimulacion();
+    ruta = new Ruta[np]; tramo = new int[np]; ubicacion = new int[np];
+    enVuelo = new boolean[np]; entregado = new boolean[np]; vencido = new boolean[np]; varado = new boolean[np];
+    Arrays.fill(ubicacion, -1);
+
+    // vuelos-día del plan
+    Map<String,Integer> fdPorClave = new HashMap<>();
+    List<String> claves = new ArrayList<>();
+    List<SubRuta> muestra = new ArrayList<>();
+    int[] cuenta = new int[16], fdTramo = new int[16];
+    int numTramos = 0;
+    long inicio = Long.MAX_VALUE, fin = Long.MIN_VALUE;
+    for (int j=0; j<np; j++){
+      Pedido p = pedidos.get(j);
+      ruta[j] = sol.rutas.get(p.id);
+      inicio = Math.min(inicio, p.liberacionUTC);
+      fin = Math.max(fin, p.vencimientoUTC);
+      if (p.producto != null) p.producto.estado = EstadoEnvio.EN_CURSO;
+      if (ruta[j] == null) continue;
+      for (SubRuta s : ruta[j].subrutas){
+        String k = Claves.claveCapacidadVueloDia(s.vuelo, s.salidaAjustadaUTC);
+        Integer fd = fdPorClave.get(k);
+        if (fd == null){ fd = claves.size(); fdPorClave.put(k, fd); claves.add(k); muestra.add(s); }
+        if (fd >= cuenta.length) cuenta = Arrays.copyOf(cuenta, cuenta.length * 2);
+        cuenta[fd]++;
+        if (numTramos == fdTramo.length) fdTramo = Arrays.copyOf(fdTramo, numTramos * 2);
+        fdTramo[numTramos++] = fd;
+      }
+      fin = Math.max(fin, ruta[j].llegadaFinalUTC + VENTANA_RECOJO_MINUTOS);
+    }
+    if (np == 0) { inicio = 0; fin = 0; }
+
+    int nf = claves.size();
+    vueloFd = new Vuelo[nf]; origenFd = new int[nf]; destinoFd = new int[nf];
+    estadoFd = new EstadoVuelo[nf]; cargaFd = new int[nf]; inicioCarga = new int[nf + 1];
+    for (int f=0; f<nf; f++) inicioCarga[f+1] = inicioCarga[f] + cuenta[f];
+    pedidoCarga = new int[inicioCarga[nf]]; tramoCarga = new int[inicioCarga[nf]];
+    int[] llenado = Arrays.copyOf(inicioCarga, nf);
+    for (int j=0, x=0; j<np; j++){
+      if (ruta[j] == null) continue;
+      for (int k=0; k<ruta[j].subrutas.size(); k++, x++){
+        int fd = fdTramo[x];
+        pedidoCarga[llenado[fd]] = j; tramoCarga[llenado[fd]] = k; llenado[fd]++;
+      }
+    }
+    for (Vuelo v : inst.vuelos) if (v.estado != EstadoVuelo.CANCELADO) v.estado = EstadoVuelo.PROGRAMADO;
+
+    res.inicioUTC = inicio;
+    res.minutosPorFranja = MINUTOS_POR_FRANJA;
+    res.numFranjas = (int)((fin - inicio) / MINUTOS_POR_FRANJA) + 1;
+    res.aeropuertos = inst.indiceAAeropuerto;
+    res.ocupacionMaxima = new int[na][res.numFranjas];
+    res.vencidosPendientes = new int[res.numFranjas];
+    res.cantidadVencidaPendiente = new long[res.numFranjas];
+    nivel = new int[na]; ultimaFranja = new int[na];
+    vencidosAhora = 0; cantidadVencidaAhora = 0; ultimaFranjaRetraso = 0;
+
+    // una ranura por minuto del horizonte: cada ranura guarda solo su minuto
+    int ranuras = Integer.highestOneBit((int)Math.min(MAX_RANURAS, fin - inicio + 1)) << 1;
+    RuedaTiempo rueda = new RuedaTiempo(Math.min(MAX_RANURAS, ranuras), inicio);
+    for (int f=0; f<nf; f++){
+      SubRuta s = muestra.get(f);
+      vueloFd[f] = s.vuelo;
+      origenFd[f] = inst.indiceAeropuerto.get(s.vuelo.origen);
+      destinoFd[f] = inst.indiceAeropuerto.get(s.vuelo.destino);
+      estadoFd[f] = (s.vuelo.estado == EstadoVuelo.CANCELADO) ? EstadoVuelo.CANCELADO : EstadoVuelo.PROGRAMADO;
+      // el cancelado conserva su salida para varar ahí la carga; no tiene llegada
+      rueda.programar(s.salidaAjustadaUTC, f * TIPOS + SALIDA);
+      if (estadoFd[f] != EstadoVuelo.CANCELADO) rueda.programar(s.llegadaAjustadaUTC, f * TIPOS + LLEGADA);
+    }
+    for (int j=0; j<np; j++){
+      Pedido p = pedidos.get(j);
+      if (ruta[j] != null) rueda.programar(p.liberacionUTC, j * TIPOS + LIBERACION);
+      rueda.programar(p.vencimientoUTC, j * TIPOS + VENCIMIENTO);
+    }
+
+    // en cada minuto, los eventos se atienden por tipo (ver orden arriba)
+    int[][] porTipo = new int[TIPOS][16];
+    int[] cuantos = new int[TIPOS];
+    int k;
+    while ((k = rueda.avanzar()) > 0){
+      long t = rueda.ahora();
+      Arrays.fill(cuantos, 0);
+      for (int i=0; i<k; i++){
+        int e = rueda.vencido(i), tipo = e % TIPOS;
+        if (cuantos[tipo] == porTipo[tipo].length) porTipo[tipo] = Arrays.copyOf(porTipo[tipo], cuantos[tipo] * 2);
+        porTipo[tipo][cuantos[tipo]++] = e / TIPOS;
+      }
+      res.eventos += k;
+      for (int tipo=0; tipo<TIPOS; tipo++)
+        for (int i=0; i<cuantos[tipo]; i++) atender(tipo, porTipo[tipo][i], t, rueda);
+    }
+
+    // cierre: líneas de tiempo hasta la última franja y totales
+    for (int a=0; a<na; a++) mover(a, 0, res.numFranjas - 1);
+    marcarRetraso(res.numFranjas - 1);
+    for (int j=0; j<np; j++){
+      if (entregado[j]) continue;
+      res.sinEntregar++; res.cantidadSinEntregar += pedidos.get(j).cantidad;
+    }
+    for (int a=0; a<na; a++){
+      Aeropuerto ap = inst.aeropuertos.get(inst.indiceAAeropuerto[a]);
+      if (ap == null || ap.esSedeExportadora) continue;
+      for (int x : res.ocupacionMaxima[a]) if (x > ap.capacidadMaxima) res.franjasAlmacenExcedidas++;
+    }
+    res.clavesVueloDia = claves.toArray(new String[0]);
+    res.estadoVueloDia = estadoFd;
+    res.cargaVueloDia = cargaFd;
+    return res;
+  }
+
+  private void atender(int tipo, int id, long t, RuedaTiempo rueda){
+    switch (tipo){
+      case SALIDA: {
+        if (estadoFd[id] == EstadoVuelo.CANCELADO){
+          // no sale: lo que esperaba este tramo (o ni llegó a él) queda varado
+          for (int c = inicioCarga[id]; c < inicioCarga[id+1]; c++) varar(pedidoCarga[c]);
+          break;
+        }
+        estadoFd[id] = EstadoVuelo.EN_VUELO;
+        vueloFd[id].estado = EstadoVuelo.EN_VUELO;
+        for (int c = inicioCarga[id]; c < inicioCarga[id+1]; c++){
+          int j = pedidoCarga[c];
+          if (tramo[j] != tramoCarga[c] || enVuelo[j] || ubicacion[j] != origenFd[id]) { varar(j); continue; }
+          int q = inst.pedidos.get(j).cantidad;
+          mover(origenFd[id], -q, franja(t));
+          enVuelo[j] = true; ubicacion[j] = -1;
+          cargaFd[id] += q;
+        }
+        if (cargaFd[id] > vueloFd[id].capacidadMaxima) res.sobrecargasVuelo++;
+        break;
+      }
+      case LLEGADA: {
+        estadoFd[id] = EstadoVuelo.ARRIBADO;
+        vueloFd[id].estado = EstadoVuelo.ARRIBADO;
+        for (int c = inicioCarga[id]; c < inicioCarga[id+1]; c++){
+          int j = pedidoCarga[c];
+          if (!enVuelo[j] || tramo[j] != tramoCarga[c]) continue;
+          enVuelo[j] = false; tramo[j]++; ubicacion[j] = destinoFd[id];
+          mover(destinoFd[id], inst.pedidos.get(j).cantidad, franja(t));
+          if (tramo[j] == ruta[j].subrutas.size()) entregar(j, t, rueda);
+        }
+        break;
+      }
+      case LIBERACION: {
+        Pedido p = inst.pedidos.get(id);
+        ubicacion[id] = inst.indiceAeropuerto.get(ruta[id].origen);
+        mover(ubicacion[id], p.cantidad, franja(t));
+        if (ruta[id].subrutas.isEmpty()) entregar(id, t, rueda);
+        break;
+      }
+      case RECOJO: {
+        mover(ubicacion[id], -inst.pedidos.get(id).cantidad, franja(t));
+        ubicacion[id] = -1;
+        break;
+      }
+      case VENCIMIENTO: {
+        if (entregado[id]) break;
+        Pedido p = inst.pedidos.get(id);
+        vencido[id] = true;
+        if (p.producto != null) p.producto.estado = EstadoEnvio.RETRASADO;
+        marcarRetraso(franja(t));
+        vencidosAhora++; cantidadVencidaAhora += p.cantidad;
+        anotarRetraso(franja(t));
+        break;
+      }
+    }
+  }
+
+  private void entregar(int j, long t, RuedaTiempo rueda){
+    Pedido p = inst.pedidos.get(j);
+    entregado[j] = true;
+    if (p.producto != null) p.producto.estado = EstadoEnvio.ENTREGADO;
+    if (t <= p.vencimientoUTC) { res.entregadosATiempo++; res.cantidadATiempo += p.cantidad; }
+    else { res.entregadosTarde++; res.cantidadTarde += p.cantidad; }
+    if (vencido[j]){
+      marcarRetraso(franja(t));
+      vencidosAhora--; cantidadVencidaAhora -= p.cantidad;
+      anotarRetraso(franja(t));
+    }
+    rueda.programar(t + VENTANA_RECOJO_MINUTOS, j * TIPOS + RECOJO);
+  }
+
+  private void varar(int j){
+    if (varado[j]) return;
+    varado[j] = true;
+    res.varados++;
+  }
+
+  // suma q al almacén del aeropuerto en la franja f; las franjas sin eventos desde el
+  // último cambio heredan el nivel que había
+  private void mover(int a, int q, int f){
+    int[] serie = res.ocupacionMaxima[a];
+    for (int x = ultimaFranja[a] + 1; x <= f; x++) serie[x] = nivel[a];
+    ultimaFranja[a] = Math.max(ultimaFranja[a], f);
+    nivel[a] += q;
+    if (nivel[a] > serie[f]) serie[f] = nivel[a];
+  }
+
+  private void marcarRetraso(int f){
+    for (int x = ultimaFranjaRetraso + 1; x <= f; x++){
+      res.vencidosPendientes[x] = vencidosAhora;
+      res.cantidadVencidaPendiente[x] = cantidadVencidaAhora;
+    }
+    ultimaFranjaRetraso = Math.max(ultimaFranjaRetraso, f);
+  }
+
+  private void anotarRetraso(int f){
+    res.vencidosPendientes[f] = vencidosAhora;
+    res.cantidadVencidaPendiente[f] = cantidadVencidaAhora;
+  }
+
+  private int franja(long t){
+    int f = (int)((t - res.inicioUTC) / MINUTOS_POR_FRANJA);
+    return Math.max(0, Math.min(res.numFranjas - 1, f));
+  }
+}